@@ -0,0 +1,73 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.QuestionApplication;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.QuestionsRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without web server for the benchmarks and seeds its in-memory database.
+ * Every benchmark runs in its own forked JVM, so it always starts from a fresh database.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class BenchmarkApplication {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(QuestionApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--questions.reply-count.reconcile-interval-ms=86400000");
+    }
+
+    /**
+     * Saves questions with the given number of replies each.
+     *
+     * @return the saved questions, in id order.
+     */
+    static List<QuestionsEntity> seedQuestions(QuestionsRepository repository, int questions, int repliesPerQuestion) {
+        List<QuestionsEntity> saved = new ArrayList<>(questions);
+        List<QuestionsEntity> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < questions; i++) {
+            chunk.add(QuestionsEntity.builder()
+                    .author("author " + i)
+                    .message("benchmark question " + i)
+                    .replyCount(repliesPerQuestion)
+                    .build());
+            if (chunk.size() == SEED_CHUNK_SIZE || i == questions - 1) {
+                saved.addAll(repository.saveAll(chunk));
+                chunk.clear();
+            }
+        }
+        for (QuestionsEntity question : saved) {
+            seedReplies(repository, question.getId(), repliesPerQuestion);
+        }
+        return saved;
+    }
+
+    static void seedReplies(QuestionsRepository repository, Long questionId, int replies) {
+        List<QuestionsEntity> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < replies; i++) {
+            chunk.add(QuestionsEntity.builder()
+                    .author("author " + i)
+                    .message("benchmark reply " + i)
+                    .parentQuestionId(questionId)
+                    .build());
+            if (chunk.size() == SEED_CHUNK_SIZE || i == replies - 1) {
+                repository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+    }
+}
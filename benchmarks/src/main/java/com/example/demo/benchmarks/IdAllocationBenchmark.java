@@ -0,0 +1,60 @@
+package com.example.demo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts of questions with their ids taken from a sequence, before and after the ids were allocated in blocks:
+ * with an allocation size of 1 every insert reads the sequence first, as the former hibernate_sequence did, with
+ * 50 one insert in 50 does, as questions_seq does. Both run on the database of the application with the statements
+ * of a question insert. In-memory H2 round trips are cheap, the gap grows with the latency of a networked database.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdAllocationBenchmark {
+
+    /**
+     * Number of ids allocated by one read of the sequence, 1 before and 50 after.
+     */
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private String sequence;
+    private long next;
+    private long last;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        sequence = "benchmark_seq_" + allocationSize;
+        jdbcTemplate.execute("create sequence " + sequence + " start with "
+                + (1_000_000_000L + allocationSize) + " increment by " + allocationSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insertQuestion() {
+        if (next > last) {
+            last = jdbcTemplate.queryForObject("select next value for " + sequence, Long.class);
+            next = last - allocationSize + 1;
+        }
+        return jdbcTemplate.update("insert into questions_entity (id, author, message, reply_count, version)"
+                + " values (?, 'benchmark', 'benchmark message', 0, 0)", next++);
+    }
+}
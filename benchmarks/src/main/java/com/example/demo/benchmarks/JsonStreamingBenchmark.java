@@ -0,0 +1,130 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.service.QuestionJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON of a page of questions and of a question with its replies, built from rows through the response DTOs as
+ * {@link com.example.demo.service.QuestionService} does and written token by token by {@link QuestionJsonWriter}.
+ * The rows are held in arrays, standing in for the columns of a result set, and both write into a stream which
+ * counts and discards the bytes, standing in for the response. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonStreamingBenchmark {
+
+    /**
+     * Number of questions in the page and of replies of the question.
+     */
+    @Param({"10", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private QuestionJsonWriter writer;
+    private long[] ids;
+    private String[] authors;
+    private String[] messages;
+    private long[] replyCounts;
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = new QuestionJsonWriter(objectMapper.getFactory());
+        ids = new long[size];
+        authors = new String[size];
+        messages = new String[size];
+        replyCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            authors[i] = "benchmark author";
+            messages[i] = "benchmark message " + i;
+            replyCounts[i] = i;
+        }
+    }
+
+    @Benchmark
+    public long questionPageThroughDtos() throws IOException {
+        List<QuestionDetails> page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            page.add(QuestionDetails.builder().id(ids[i]).author(authors[i]).message(messages[i]).replies(replyCounts[i]).build());
+        }
+        out.count = 0;
+        objectMapper.writeValue(out, page);
+        return out.count;
+    }
+
+    @Benchmark
+    public long questionPageStreamed() throws IOException {
+        out.count = 0;
+        writer.writeQuestionPage(handler -> {
+            for (int i = 0; i < size; i++) {
+                handler.row(ids[i], authors[i], messages[i], replyCounts[i]);
+            }
+        }, size, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long questionThroughDtos() throws IOException {
+        List<ReplyDetails> replies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            replies.add(ReplyDetails.builder().id(ids[i]).author(authors[i]).message(messages[i]).build());
+        }
+        out.count = 0;
+        objectMapper.writeValue(out, QuestionsResponse.builder()
+                .id(0L)
+                .author("benchmark author")
+                .message("benchmark question")
+                .replies(replies)
+                .totalReplies((long) size)
+                .build());
+        return out.count;
+    }
+
+    @Benchmark
+    public long questionStreamed() throws IOException {
+        out.count = 0;
+        writer.writeQuestion(0L, "benchmark author", "benchmark question", size, handler -> {
+            for (int i = 0; i < size; i++) {
+                handler.row(ids[i], authors[i], messages[i], 0);
+            }
+        }, size, out);
+        return out.count;
+    }
+
+    /**
+     * Discards what is written, the response stream is not part of the measurement.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
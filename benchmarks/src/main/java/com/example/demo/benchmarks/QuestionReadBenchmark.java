@@ -0,0 +1,102 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.QuestionsRepository;
+import com.example.demo.service.Cursors;
+import com.example.demo.service.QuestionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link QuestionService}: the question listing and the question details, for several numbers of
+ * questions and replies.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionReadBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Number of questions in the database.
+     */
+    @Param({"1000", "100000"})
+    public int questions;
+
+    /**
+     * Number of replies of the question whose details are read.
+     */
+    @Param({"10", "1000"})
+    public int replies;
+
+    private ConfigurableApplicationContext context;
+    private QuestionService service;
+    private Long questionId;
+    private String lastPageCursor;
+    private List<QuestionDetails> firstPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(QuestionService.class);
+        QuestionsRepository repository = context.getBean(QuestionsRepository.class);
+        List<QuestionsEntity> seeded = BenchmarkApplication.seedQuestions(repository, questions, 0);
+        questionId = BenchmarkApplication.seedQuestions(repository, 1, replies).get(0).getId();
+        lastPageCursor = Cursors.encode(seeded.get(seeded.size() - PAGE_SIZE).getId());
+        firstPage = service.getListOfQuestions(null, PAGE_SIZE).getBody();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<QuestionDetails>> listFirstPage() {
+        return service.getListOfQuestions(null, PAGE_SIZE);
+    }
+
+    /**
+     * Keyset paging: a page deep in the listing should cost the same as the first one.
+     */
+    @Benchmark
+    public ResponseEntity<List<QuestionDetails>> listLastPage() {
+        return service.getListOfQuestions(lastPageCursor, PAGE_SIZE);
+    }
+
+    /**
+     * Entity tag of a page already read, the extra cost of the tag on top of {@link #listFirstPage()}.
+     */
+    @Benchmark
+    public String listEtag() {
+        return service.getListOfQuestionsEtag(null, PAGE_SIZE, firstPage, true);
+    }
+
+    /**
+     * Question details with the first page of replies, read from the database on every call.
+     */
+    @Benchmark
+    public ResponseEntity<QuestionsResponse> questionDetails() {
+        return service.getQuestion(questionId, null, 100);
+    }
+
+    /**
+     * Question details with the first page of replies, served from the cache after the first call.
+     */
+    @Benchmark
+    public ResponseEntity<QuestionsResponse> questionDetailsCached() {
+        return service.getQuestion(questionId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.BatchItemResult;
+import com.example.demo.model.MessageQuestionReplyBody;
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.messageReplyResponse;
+import com.example.demo.persistence.QuestionsRepository;
+import com.example.demo.service.QuestionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths of {@link QuestionService}: single questions, single replies and bulk questions.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionWriteBenchmark {
+
+    /**
+     * Number of questions saved by one call of the bulk endpoint.
+     */
+    @Param({"50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private QuestionService service;
+    private Long questionId;
+    private MessageQuestionReplyBody body;
+    private List<MessageQuestionReplyBody> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(QuestionService.class);
+        questionId = BenchmarkApplication.seedQuestions(context.getBean(QuestionsRepository.class), 1, 0).get(0).getId();
+        body = MessageQuestionReplyBody.builder().author("benchmark").message("benchmark message").build();
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(body);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<QuestionDetails> registerQuestion() {
+        return service.registerQuestion(body);
+    }
+
+    /**
+     * All replies go to the same question, which also measures the contention on its reply count.
+     */
+    @Benchmark
+    public ResponseEntity<messageReplyResponse> messageReply() {
+        return service.messageReply(questionId, body);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BatchItemResult>> registerQuestions() {
+        return service.registerQuestions(batch);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.search.QuestionSearchIndex;
+import com.example.demo.search.SearchHits;
+import com.example.demo.search.SearchProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of {@link QuestionSearchIndex} over generated messages, a quarter of them questions and the others replies
+ * to earlier questions picked at random, so that most postings arrive out of question order. Terms are drawn from a
+ * skewed vocabulary: the query terms range from one matching a handful of questions to one matching most of them.
+ * The target is a query in single-digit milliseconds at millions of messages.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int TERMS_PER_MESSAGE = 8;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Number of indexed questions and replies.
+     */
+    @Param({"1000000"})
+    public int messages;
+
+    private QuestionSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new QuestionSearchIndex(new SearchProperties());
+        Random random = new Random(42);
+        StringBuilder message = new StringBuilder();
+        long questions = 0;
+        for (long id = 1; id <= messages; id++) {
+            message.setLength(0);
+            for (int i = 0; i < TERMS_PER_MESSAGE; i++) {
+                message.append(term(random)).append(' ');
+            }
+            if (questions == 0 || random.nextInt(4) == 0) {
+                index.index(id, id, message.toString());
+                questions = id;
+            } else {
+                index.index(id, 1 + (long) (random.nextDouble() * questions), message.toString());
+            }
+        }
+    }
+
+    /**
+     * Term of a roughly Zipf distributed vocabulary, "t0" is the most frequent.
+     */
+    private static String term(Random random) {
+        return "t" + (int) Math.floor(Math.pow(VOCABULARY, random.nextDouble()) - 1);
+    }
+
+    @Benchmark
+    public SearchHits rareTerm() {
+        return index.search("t40000", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchHits commonTerm() {
+        return index.search("t3", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchHits severalTerms() {
+        return index.search("t3 t50 t700 t9000", 0, PAGE_SIZE);
+    }
+
+    /**
+     * A deep page of a frequent term, the cursor of the search is an offset into the ranking.
+     */
+    @Benchmark
+    public SearchHits commonTermDeepPage() {
+        return index.search("t3", 10 * PAGE_SIZE, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.model.messageReplyResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response DTOs as JSON and as CBOR, with object mappers configured like the ones of
+ * the application. The payload sizes of both formats are reported with the results by the {@link PayloadCounters}
+ * of each benchmark.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * Number of replies in the serialized question details and number of questions in the serialized page.
+     */
+    @Param({"10", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private QuestionDetails questionDetails;
+    private List<QuestionDetails> questionPage;
+    private QuestionsResponse questionsResponse;
+    private messageReplyResponse replyResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        questionDetails = new QuestionDetails(1L, "benchmark author", "benchmark question message", (long) size);
+        questionPage = new ArrayList<>(size);
+        List<ReplyDetails> replies = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            questionPage.add(new QuestionDetails(i, "benchmark author", "benchmark question message " + i, i));
+            replies.add(new ReplyDetails(i, "benchmark author", "benchmark reply message " + i));
+        }
+        questionsResponse = QuestionsResponse.builder()
+                .id(1L)
+                .author("benchmark author")
+                .message("benchmark question message")
+                .replies(replies)
+                .totalReplies((long) size)
+                .build();
+        replyResponse = messageReplyResponse.builder()
+                .id(2L)
+                .questionId(1L)
+                .author("benchmark author")
+                .message("benchmark reply message")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] questionDetails(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(objectMapper.writeValueAsBytes(questionDetails));
+    }
+
+    @Benchmark
+    public byte[] questionPage(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(objectMapper.writeValueAsBytes(questionPage));
+    }
+
+    @Benchmark
+    public byte[] questionsResponse(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(objectMapper.writeValueAsBytes(questionsResponse));
+    }
+
+    @Benchmark
+    public byte[] replyResponse(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(objectMapper.writeValueAsBytes(replyResponse));
+    }
+
+    @Benchmark
+    public byte[] questionPageCbor(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(cborMapper.writeValueAsBytes(questionPage));
+    }
+
+    @Benchmark
+    public byte[] questionsResponseCbor(PayloadCounters counters) throws JsonProcessingException {
+        return counters.count(cborMapper.writeValueAsBytes(questionsResponse));
+    }
+
+    /**
+     * Bytes written and payloads serialized, summed over the iterations like all event counters of JMH:
+     * payloadBytes / payloads is the size of one payload.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadCounters {
+        public long payloadBytes;
+        public long payloads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+            payloads = 0;
+        }
+
+        byte[] count(byte[] payload) {
+            payloadBytes += payload.length;
+            payloads++;
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Beans of the reactive api, which is served instead of the blocking one with the "reactive" profile.
+ * The schema is still created by JPA, the reactive api reads and writes the same tables through R2DBC.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+    /**
+     * Netty is used even though Tomcat is on the classpath for the blocking api.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Connects with the credentials of the JPA datasource.
+     */
+    @Bean
+    public ConnectionFactory connectionFactory(ReactiveProperties properties, DataSourceProperties dataSourceProperties) {
+        return ConnectionFactories.get(ConnectionFactoryOptions.parse(properties.getR2dbcUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * The reactive transaction manager is deliberately not a bean: a second transaction manager would make the
+     * {@code @Transactional} methods of the JPA services ambiguous.
+     */
+    @Bean
+    public TransactionalOperator transactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
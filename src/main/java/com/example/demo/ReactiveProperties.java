@@ -0,0 +1,25 @@
+package com.example.demo;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the reactive api, bound from {@code questions.reactive.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@Profile("reactive")
+@ConfigurationProperties(prefix = "questions.reactive")
+public class ReactiveProperties {
+
+    /**
+     * R2DBC url of the database, it has to point to the same database as the JPA datasource.
+     */
+    private String r2dbcUrl = "r2dbc:pool:h2:mem:///testdb";
+}
@@ -0,0 +1,22 @@
+package com.example.demo.api;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Replaces the CBOR message converter registered by Spring MVC with one built from the object mapper builder of
+ * Spring Boot, so that CBOR bodies are read and written with the same modules and settings as JSON bodies.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Configuration
+public class CborConfiguration {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.api;
+
+import com.example.demo.cache.CacheStats;
+import com.example.demo.cache.HotQuestion;
+import com.example.demo.cache.QuestionDetailsCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * DiagnosticsController exposes internal state of the service for operators.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@RestController
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    static final int MAX_HOT_QUESTIONS = 100;
+
+    private final QuestionDetailsCache cache;
+
+    /**
+     * Cache statistics endpoint definition.
+     *
+     * @return hit, miss and eviction counters of the question details cache of type {@link CacheStats}
+     */
+    @RequestMapping(value = "/diagnostics/cache",
+            produces = {"application/json"},
+            method = RequestMethod.GET)
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(cache.stats());
+    }
+
+    /**
+     * Hot questions endpoint definition.
+     *
+     * @param limit maximum number of questions listed, at most {@value #MAX_HOT_QUESTIONS}.
+     * @return cached questions read most often recently of type {@link List<HotQuestion>}, with their estimated
+     * number of recent reads and whether they are pinned in the cache.
+     */
+    @RequestMapping(value = "/diagnostics/hot-questions",
+            produces = {"application/json"},
+            method = RequestMethod.GET)
+    public ResponseEntity<List<HotQuestion>> getHotQuestions(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cache.hotQuestions(Math.max(0, Math.min(limit, MAX_HOT_QUESTIONS))));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers {@link QueryBudgetInterceptor} for all endpoints of the blocking api.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Configuration
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+@RequiredArgsConstructor
+public class QueryBudgetConfiguration implements WebMvcConfigurer {
+
+    private final QueryBudgetProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryBudgetInterceptor(properties));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.api;
+
+import com.example.demo.persistence.StatementCounter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements of every request with {@link StatementCounter} and checks them against the budget of
+ * the endpoint. Requests over budget are logged and counted in the {@value #EXCEEDED_COUNTER} metric, with
+ * {@link QueryBudgetProperties.Mode#REJECT} the statement exceeding the budget fails as well.
+ * Statements of a streamed response body run on another thread and are not counted.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@RequiredArgsConstructor
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+    static final String EXCEEDED_COUNTER = "questions.query-budget.exceeded";
+    private static final String SCOPE_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".scope";
+
+    private final QueryBudgetProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (properties.isEnabled() && handler instanceof HandlerMethod) {
+            int budget = properties.budgetOf(((HandlerMethod) handler).getMethod().getName());
+            request.setAttribute(SCOPE_ATTRIBUTE,
+                    StatementCounter.open(budget, properties.getMode() == QueryBudgetProperties.Mode.REJECT));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        StatementCounter.Scope scope = closeScope(request);
+        if (scope != null && scope.isExceeded()) {
+            String endpoint = ((HandlerMethod) handler).getMethod().getName();
+            log.warn("{} {} prepared {} SQL statements, its budget is {}.",
+                    request.getMethod(), request.getRequestURI(), scope.getCount(), scope.getBudget());
+            Metrics.counter(EXCEEDED_COUNTER, "endpoint", endpoint).increment();
+        }
+    }
+
+    /**
+     * The request thread is released before the response is complete, the scope must not outlive it.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        closeScope(request);
+    }
+
+    private StatementCounter.Scope closeScope(HttpServletRequest request) {
+        StatementCounter.Scope scope = (StatementCounter.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+        }
+        return scope;
+    }
+}
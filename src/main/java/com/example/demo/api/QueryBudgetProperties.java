@@ -0,0 +1,59 @@
+package com.example.demo.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the per request SQL statement budget, bound from {@code questions.query-budget.*}.
+ * Registered by {@link QueryBudgetConfiguration} so that it is also available in web slice tests.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "questions.query-budget")
+public class QueryBudgetProperties {
+
+    /**
+     * What happens when a request exceeds its budget.
+     */
+    public enum Mode {
+        /**
+         * The request completes and a warning is logged.
+         */
+        LOG,
+        /**
+         * The statement exceeding the budget fails, the request is answered with ERROR016.
+         */
+        REJECT
+    }
+
+    /**
+     * Whether statements of requests are counted at all.
+     */
+    private boolean enabled = true;
+
+    private Mode mode = Mode.LOG;
+
+    /**
+     * Budget of the endpoints which do not have their own.
+     */
+    private int defaultBudget = 10;
+
+    /**
+     * Budget per endpoint, keyed by the name of the controller method.
+     */
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    /**
+     * @param endpoint name of the controller method.
+     * @return number of statements the endpoint may prepare.
+     */
+    public int budgetOf(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultBudget);
+    }
+}
@@ -1,19 +1,34 @@
 package com.example.demo.api;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 	
+import com.example.demo.service.QuestionExportService;
+import com.example.demo.service.QuestionJsonService;
+import com.example.demo.service.QuestionSearchService;
 import com.example.demo.service.QuestionService;
+import com.example.demo.model.BatchItemResult;
 import com.example.demo.model.MessageQuestionReplyBody;
 import com.example.demo.model.messageReplyResponse;
 import com.example.demo.model.QuestionDetails;
@@ -28,18 +43,25 @@ import lombok.RequiredArgsConstructor;
 @javax.annotation.Generated(value = "io.swagger.codegen.languages.SpringCodegen")
 /**
  * QuestionsController component implements all rest services.
+ * Questions and replies are exchanged as JSON by default, or as CBOR when requested with the Accept and Content-Type
+ * headers. Both are written from the same model classes.
  * This component handovers the actual implementation to the service {@link QuestionService}
  * The service is injected via Constructor.
  * @generated SwaggerIO.
+ * Not served with the "reactive" profile, see {@link ReactiveQuestionsController}.
  * @author Narasimha Reddy Guthireddy
  */
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class QuestionsController {
 
     private static final Logger log = LoggerFactory.getLogger(QuestionsController.class);
 
     private final QuestionService service;
+    private final QuestionExportService exportService;
+    private final QuestionSearchService searchService;
+    private final QuestionJsonService jsonService;
 
     /**
      * registerQuestion endpoint definition.
@@ -48,8 +70,8 @@ public class QuestionsController {
      * @return QuestionDetails of the new question Added.
      */
     @RequestMapping(value = "/questions",
-            produces = {"application/json"},
-            consumes = {"application/json"},
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
             method = RequestMethod.POST)
     public ResponseEntity<QuestionDetails> addQuestion(@Valid @RequestBody(required = true) MessageQuestionReplyBody body) {
     	log.info("Calling registerQuestion method");
@@ -63,40 +85,210 @@ public class QuestionsController {
      * @return ReplyDetails of the new reply Added of Type {@link messageReplyResponse}
      */
     @RequestMapping(value = "/questions/{questionId}/reply",
-            produces = {"application/json"},
-            consumes = {"application/json"},
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
             method = RequestMethod.POST)
     public ResponseEntity<messageReplyResponse> createReply(@PathVariable("questionId") Long questionId, @Valid @RequestBody MessageQuestionReplyBody requestBody) {
     	log.info("Calling messageReply method");
         return service.messageReply(questionId, requestBody);
     }
     /**
-     * getListOfQuestions endpoint definition.
+     * Bulk registerQuestion endpoint definition. The valid questions are saved together, invalid ones are reported
+     * and skipped.
+     *
+     * @param body list of question request bodies of type {@link MessageQuestionReplyBody}.
+     * @return one {@link BatchItemResult} per question in request order, the id of the new question or its error.
+     */
+    @RequestMapping(value = "/questions:batch",
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
+            method = RequestMethod.POST)
+    public ResponseEntity<List<BatchItemResult>> addQuestions(@Valid @RequestBody(required = true) List<MessageQuestionReplyBody> body) {
+    	log.info("Calling registerQuestions method");
+        return service.registerQuestions(body);
+    }
+    /**
+     * Bulk messageReply endpoint definition. The valid replies are saved together, invalid ones are reported
+     * and skipped.
      *
-     * @return list of all questions in the database of type {@link List<QuestionDetails>}
+     * @param questionId   input question to which the given replies are added.
+     * @param requestBody  list of reply request bodies of type {@link MessageQuestionReplyBody}.
+     * @return one {@link BatchItemResult} per reply in request order, the id of the new reply or its error.
+     */
+    @RequestMapping(value = "/questions/{questionId}/replies:batch",
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
+            method = RequestMethod.POST)
+    public ResponseEntity<List<BatchItemResult>> createReplies(@PathVariable("questionId") Long questionId, @Valid @RequestBody List<MessageQuestionReplyBody> requestBody) {
+    	log.info("Calling messageReplies method");
+        return service.messageReplies(questionId, requestBody);
+    }
+    /**
+     * getListOfQuestions endpoint definition. Questions are returned one keyset page at a time,
+     * the cursor of the next page is sent in the {@value QuestionService#NEXT_CURSOR_HEADER} header.
+     * Pages carry a strong ETag hashed from the questions of the page, the unpaged listing does not. A page is read
+     * in any case, a matching ETag only saves writing it. Pages are written by {@link QuestionJsonService} when it
+     * is enabled.
+     *
+     * @param after   cursor of the page to read, absent for the first page.
+     * @param limit   maximum number of questions in the page.
+     * @param unpaged explicit opt-in to read all questions in one response, paging parameters are ignored.
+     * @param request used to answer 304 Not Modified when the client already has the current version of the page.
+     * @param response written directly by {@link QuestionJsonService} when it is enabled.
+     * @return page of questions in the database of type {@link List<QuestionDetails>}
+     * @throws IOException if the page cannot be written to the response.
      */
     @RequestMapping(value = "/questions",
-            produces = {"application/json"},
-            consumes = {"application/json"},
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
             method = RequestMethod.GET)
-    public ResponseEntity<List<QuestionDetails>> getListOfQuestions() {
+    public ResponseEntity<List<QuestionDetails>> getListOfQuestions(@RequestParam(value = "after", required = false) String after,
+                                                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                                                    @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+                                                                    WebRequest request,
+                                                                    HttpServletResponse response) throws IOException {
     	log.info("Calling getListOfQuestions method");
-        return service.getListOfQuestions();
+        if (unpaged) {
+            return service.getListOfQuestions();
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (jsonService.isEnabled() && acceptsJson(request)) {
+            jsonService.writeListOfQuestions(after, limit, request, response);
+            return null;
+        }
+        ResponseEntity<List<QuestionDetails>> page = service.getListOfQuestions(after, limit);
+        String etag = service.getListOfQuestionsEtag(after, limit, page.getBody(),
+                page.getHeaders().containsKey(QuestionService.NEXT_CURSOR_HEADER));
+        if (request.checkNotModified(representationEtag(etag, request))) {
+            return null;
+        }
+        return page;
+    }
+    /**
+     * searchQuestions endpoint definition. Finds the questions whose message or replies contain the terms of the
+     * query, best match first. The total number of matches is sent in the
+     * {@value QuestionSearchService#TOTAL_COUNT_HEADER} header and the cursor of the next page in the
+     * {@value QuestionService#NEXT_CURSOR_HEADER} header. The cursor is an offset into the ranking at the time of
+     * the request, a match added or re-ranked between two pages may be skipped or repeated.
+     *
+     * @param q     free text query.
+     * @param after cursor of the page to read, absent for the first page.
+     * @param limit maximum number of questions in the page.
+     * @return page of matching questions of type {@link List<QuestionDetails>}
+     */
+    @RequestMapping(value = "/questions/search",
+            produces = {"application/json"},
+            method = RequestMethod.GET)
+    public ResponseEntity<List<QuestionDetails>> searchQuestions(@RequestParam(value = "q") String q,
+                                                                 @RequestParam(value = "after", required = false) String after,
+                                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+    	log.info("Calling searchQuestions method");
+        return searchService.searchQuestions(q, after, limit);
     }
     /**
-     * getQuestion endpoint definition.
+     * exportQuestions endpoint definition. Streams all questions as newline-delimited JSON,
+     * one {@link QuestionDetails} document per line.
      *
-     * @param questionId input questionId to extract the details.
+     * @return body streaming all questions in the database.
+     */
+    @RequestMapping(value = "/questions:export",
+            produces = {"application/x-ndjson"},
+            method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> exportQuestions() {
+    	log.info("Calling exportQuestions method");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(exportService.exportQuestions());
+    }
+    /**
+     * getQuestion endpoint definition. Replies are returned one keyset page at a time,
+     * the cursor of the next page is sent in the nextRepliesCursor field of the response.
+     * The response carries a strong ETag built from the version of the question. The response is written by
+     * {@link QuestionJsonService} when it is enabled.
+     *
+     * @param questionId   input questionId to extract the details.
+     * @param repliesAfter cursor of the page of replies to read, absent for the first page.
+     * @param repliesLimit maximum number of replies in the page.
+     * @param request      used to answer 304 Not Modified when the client already has the current version of the question.
+     * @param response     written directly by {@link QuestionJsonService} when it is enabled.
      * @return questionDetails of the input question requested of type{@link QuestionsResponse}
+     * @throws IOException if the question cannot be written to the response.
      */
     @RequestMapping(value = "/questions/{questionId}",
-            produces = {"application/json"},
-            consumes = {"application/json"},
+            produces = {"application/json", "application/cbor"},
+            consumes = {"application/json", "application/cbor"},
             method = RequestMethod.GET)
-  public ResponseEntity<QuestionsResponse> getQuestionDetails(@PathVariable("questionId") Long questionId) {
+  public ResponseEntity<QuestionsResponse> getQuestionDetails(@PathVariable("questionId") Long questionId,
+                                                              @RequestParam(value = "repliesAfter", required = false) String repliesAfter,
+                                                              @RequestParam(value = "repliesLimit", required = false) Integer repliesLimit,
+                                                              WebRequest request,
+                                                              HttpServletResponse response) throws IOException {
     	log.info("Calling getQuestion method");
-        return service.getQuestion(questionId);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (request.checkNotModified(representationEtag(service.getQuestionEtag(questionId, repliesAfter, repliesLimit), request))) {
+            return null;
+        }
+        if (jsonService.isEnabled() && acceptsJson(request)) {
+            jsonService.writeQuestion(questionId, repliesAfter, repliesLimit, response);
+            return null;
+        }
+        return service.getQuestion(questionId, repliesAfter, repliesLimit);
 
     }
+    /**
+     * streamReplies endpoint definition. Streams the new replies of a question as Server-Sent Events named
+     * {@value com.example.demo.feed.ReplyFeed#EVENT_NAME}, each carrying a {@link messageReplyResponse} and the reply
+     * number as event id. Clients reconnecting with the Last-Event-ID header first receive the replies they missed.
+     * The mapping does not restrict the produced type so that errors are answered with the usual JSON body.
+     *
+     * @param questionId  input questionId whose replies are streamed.
+     * @param lastEventId reply number of the last event received before the connection was lost, absent on a first connection.
+     * @return emitter of the stream.
+     */
+    @RequestMapping(value = "/questions/{questionId}/replies/stream",
+            method = RequestMethod.GET)
+    public SseEmitter streamReplies(@PathVariable("questionId") Long questionId,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    	log.info("Calling streamReplies method");
+        return service.streamReplies(questionId, lastEventId);
+    }
+
+    /**
+     * Strong entity tags identify the bytes of one representation, the tag of the CBOR representation gets a suffix.
+     */
+    private static String representationEtag(String etag, WebRequest request) {
+        if (etag == null || acceptsJson(request)) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-cbor\"";
+    }
+
+    /**
+     * Whether JSON is preferred over CBOR by the Accept header, as by the content negotiation of the DTO responses.
+     * Only JSON is written by {@link QuestionJsonService}.
+     */
+    private static boolean acceptsJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return true;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // the produces condition of the mapping answers 406 first, JSON is the default representation anyway
+            return true;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
 }
@@ -0,0 +1,107 @@
+package com.example.demo.api;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.model.MessageQuestionReplyBody;
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.messageReplyResponse;
+import com.example.demo.service.ReactiveQuestionService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveQuestionsController serves the question endpoints of {@link QuestionsController} on WebFlux when the
+ * "reactive" profile is active, with the same paths, parameters and payloads.
+ * The implementation is handed over to {@link ReactiveQuestionService}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveQuestionsController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveQuestionsController.class);
+
+    private final ReactiveQuestionService service;
+
+    /**
+     * registerQuestion endpoint definition.
+     *
+     * @param body question request body of type {@link MessageQuestionReplyBody}.
+     * @return QuestionDetails of the new question Added.
+     */
+    @RequestMapping(value = "/questions",
+            produces = {"application/json"},
+            consumes = {"application/json"},
+            method = RequestMethod.POST)
+    public Mono<ResponseEntity<QuestionDetails>> addQuestion(@RequestBody MessageQuestionReplyBody body) {
+        log.info("Calling registerQuestion method");
+        return service.registerQuestion(body);
+    }
+
+    /**
+     * messageReply endpoint definition.
+     *
+     * @param questionId  input question to which the given reply is added.
+     * @param requestBody reply request body of type {@link MessageQuestionReplyBody}.
+     * @return ReplyDetails of the new reply Added of Type {@link messageReplyResponse}
+     */
+    @RequestMapping(value = "/questions/{questionId}/reply",
+            produces = {"application/json"},
+            consumes = {"application/json"},
+            method = RequestMethod.POST)
+    public Mono<ResponseEntity<messageReplyResponse>> createReply(@PathVariable("questionId") Long questionId, @RequestBody MessageQuestionReplyBody requestBody) {
+        log.info("Calling messageReply method");
+        return service.messageReply(questionId, requestBody);
+    }
+
+    /**
+     * getListOfQuestions endpoint definition. Questions are returned one keyset page at a time,
+     * the cursor of the next page is sent in the X-Next-Cursor header.
+     *
+     * @param after cursor of the page to read, absent for the first page.
+     * @param limit maximum number of questions in the page.
+     * @return page of questions in the database of type {@link List<QuestionDetails>}
+     */
+    @RequestMapping(value = "/questions",
+            produces = {"application/json"},
+            method = RequestMethod.GET)
+    public Mono<ResponseEntity<List<QuestionDetails>>> getListOfQuestions(@RequestParam(value = "after", required = false) String after,
+                                                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        log.info("Calling getListOfQuestions method");
+        return service.getListOfQuestions(after, limit);
+    }
+
+    /**
+     * getQuestion endpoint definition. Replies are returned one keyset page at a time,
+     * the cursor of the next page is sent in the nextRepliesCursor field of the response.
+     *
+     * @param questionId   input questionId to extract the details.
+     * @param repliesAfter cursor of the page of replies to read, absent for the first page.
+     * @param repliesLimit maximum number of replies in the page.
+     * @return questionDetails of the input question requested of type{@link QuestionsResponse}
+     */
+    @RequestMapping(value = "/questions/{questionId}",
+            produces = {"application/json"},
+            method = RequestMethod.GET)
+    public Mono<ResponseEntity<QuestionsResponse>> getQuestionDetails(@PathVariable("questionId") Long questionId,
+                                                                      @RequestParam(value = "repliesAfter", required = false) String repliesAfter,
+                                                                      @RequestParam(value = "repliesLimit", required = false) Integer repliesLimit) {
+        log.info("Calling getQuestion method");
+        return service.getQuestion(questionId, repliesAfter, repliesLimit);
+    }
+}
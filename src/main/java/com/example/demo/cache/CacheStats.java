@@ -0,0 +1,21 @@
+package com.example.demo.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of {@link QuestionDetailsCache}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Builder
+@Getter
+public class CacheStats {
+    private boolean enabled;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long pinned;
+    private long rejections;
+}
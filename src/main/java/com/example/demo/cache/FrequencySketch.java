@@ -0,0 +1,80 @@
+package com.example.demo.cache;
+
+/**
+ * Count-min sketch estimating how often each question was read recently, in 4-bit counters packed sixteen to a long.
+ * Every key maps to one counter in each of four rows, its estimate is the smallest of them. Once ten times the
+ * capacity of reads are counted all counters are halved, so that the estimates follow the recent traffic.
+ * Not thread-safe, {@link QuestionDetailsCache} uses it under its lock.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class FrequencySketch {
+
+    static final int MAX_FREQUENCY = 15;
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9e3779b97f4a7c15L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0xd6e8feb86659fd93L};
+    private static final long HALVE_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int rowMask;
+    private final int sampleSize;
+    private int samples;
+
+    /**
+     * @param capacity number of entries of the cache, sizes the sketch and the aging period.
+     */
+    FrequencySketch(int capacity) {
+        int rowLength = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 3;  // at least four counters per entry in each row
+        this.table = new long[rowLength * DEPTH / 16];
+        this.rowMask = rowLength - 1;
+        this.sampleSize = 10 * Math.max(capacity, 1);
+    }
+
+    /**
+     * Estimates the number of recent reads of a key, at most {@value #MAX_FREQUENCY}.
+     */
+    int frequency(long key) {
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < DEPTH; row++) {
+            int counter = counter(key, row);
+            frequency = Math.min(frequency, (int) (table[counter >>> 4] >>> ((counter & 15) << 2)) & 15);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts a read of a key.
+     */
+    void increment(long key) {
+        boolean incremented = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int counter = counter(key, row);
+            int shift = (counter & 15) << 2;
+            if (((table[counter >>> 4] >>> shift) & 15) < MAX_FREQUENCY) {
+                table[counter >>> 4] += 1L << shift;
+                incremented = true;
+            }
+        }
+        if (incremented && ++samples >= sampleSize) {
+            halve();
+        }
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALVE_MASK;
+        }
+        samples >>>= 1;
+    }
+
+    /**
+     * Index of the counter of a key in a row, rows are laid out one after the other.
+     */
+    private int counter(long key, int row) {
+        long hash = (key ^ SEEDS[row]) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return row * (rowMask + 1) + ((int) hash & rowMask);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Cached question with its estimated number of recent reads, as listed by {@link QuestionDetailsCache#hotQuestions}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Builder
+@Getter
+public class HotQuestion {
+    private long questionId;
+    private int frequency;
+    private boolean pinned;
+}
@@ -0,0 +1,265 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.QuestionsResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through cache of question details in front of the database, with frequency based admission.
+ * Every read is counted in a {@link FrequencySketch}. A new question enters a small window of recently read
+ * questions, leaving it once {@link QuestionsCacheProperties#getMaximumSize()} is reached it replaces the least
+ * recently used cached question only if it was read more often recently, so a scan over many questions read once
+ * cannot flush the questions read all the time. A cached question reaching {@link QuestionsCacheProperties#getPinThreshold()}
+ * is pinned: it is only unpinned to make room for another hot question and never replaced while unpinned questions
+ * are cached. {@link #hotQuestions(int)} lists the cached questions read most often.
+ * Entries expire after {@link QuestionsCacheProperties#getTtl()}. Writers invalidate the question they changed,
+ * {@link #isRecentlyInvalidated(Long)} tells loaders to read it from the primary database for
+ * {@link QuestionsCacheProperties#getPrimaryReloadWindow()} afterwards.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class QuestionDetailsCache {
+
+    private final QuestionsCacheProperties properties;
+    private final Object lock = new Object();
+    private final FrequencySketch sketch;
+    /**
+     * Segments in least recently used order, guarded by the lock.
+     */
+    private final Map<Long, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Entry> pinned = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Map<Long, Entry>> segments = Arrays.asList(pinned, probation, window);
+    private final int windowSize;
+    private final int mainSize;
+    private final int pinnedSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    /**
+     * Incremented by every invalidation, a value loaded before an invalidation is not cached.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    /**
+     * End of the primary reload window of the recently invalidated questions, in invalidation order, guarded by the lock.
+     */
+    private final Map<Long, Long> recentlyInvalidated = new LinkedHashMap<>();
+
+    public QuestionDetailsCache(QuestionsCacheProperties properties) {
+        this.properties = properties;
+        this.sketch = new FrequencySketch(properties.getMaximumSize());
+        this.windowSize = Math.max(1, properties.getMaximumSize() / 100);
+        this.mainSize = Math.max(0, properties.getMaximumSize() - windowSize);
+        this.pinnedSize = Math.min(properties.getPinnedSize(), mainSize);
+    }
+
+    /**
+     * Returns the cached details of a question or loads and caches them. The loader runs outside of the cache lock,
+     * exceptions thrown by it are propagated and nothing is cached.
+     *
+     * @param questionId id of the question.
+     * @param loader     reads the question details from the database.
+     * @return details of the question.
+     */
+    public QuestionsResponse get(Long questionId, Function<Long, QuestionsResponse> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(questionId);
+        }
+        long now = System.nanoTime();
+        synchronized (lock) {
+            sketch.increment(questionId);
+            Entry entry = find(questionId);
+            if (entry != null) {
+                if (now - entry.expiresAt < 0) {
+                    hits.incrementAndGet();
+                    pinIfHot(questionId, entry);
+                    return entry.value;
+                }
+                remove(questionId);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        long invalidationsBefore = invalidations.get();
+        QuestionsResponse value = loader.apply(questionId);
+        synchronized (lock) {
+            if (invalidations.get() == invalidationsBefore) {
+                admit(questionId, new Entry(value, now + properties.getTtl().toNanos()));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes a question from the cache, to be called after the question or its replies changed.
+     *
+     * @param questionId id of the question.
+     */
+    public void invalidate(Long questionId) {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            invalidations.incrementAndGet();
+            remove(questionId);
+            expireInvalidations(now);
+            if (!properties.getPrimaryReloadWindow().isZero()) {
+                recentlyInvalidated.remove(questionId);
+                recentlyInvalidated.put(questionId, now + properties.getPrimaryReloadWindow().toNanos());
+            }
+        }
+    }
+
+    /**
+     * Tells whether a question was invalidated within {@link QuestionsCacheProperties#getPrimaryReloadWindow()}, its
+     * loader should then read it from the primary database as the replicas may not have the change yet.
+     *
+     * @param questionId id of the question.
+     * @return true if the question was invalidated recently.
+     */
+    public boolean isRecentlyInvalidated(Long questionId) {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            expireInvalidations(now);
+            return recentlyInvalidated.containsKey(questionId);
+        }
+    }
+
+    /**
+     * Reads the counters of the cache.
+     *
+     * @return snapshot of the counters.
+     */
+    public CacheStats stats() {
+        synchronized (lock) {
+            return CacheStats.builder()
+                    .enabled(properties.isEnabled())
+                    .size(window.size() + probation.size() + pinned.size())
+                    .hits(hits.get())
+                    .misses(misses.get())
+                    .evictions(evictions.get())
+                    .pinned(pinned.size())
+                    .rejections(rejections.get())
+                    .build();
+        }
+    }
+
+    /**
+     * Lists the cached questions read most often recently.
+     *
+     * @param limit maximum number of questions listed.
+     * @return questions by decreasing estimated number of recent reads.
+     */
+    public List<HotQuestion> hotQuestions(int limit) {
+        synchronized (lock) {
+            List<HotQuestion> questions = new ArrayList<>(window.size() + probation.size() + pinned.size());
+            for (Map<Long, Entry> segment : segments) {
+                for (Long questionId : segment.keySet()) {
+                    questions.add(HotQuestion.builder()
+                            .questionId(questionId)
+                            .frequency(sketch.frequency(questionId))
+                            .pinned(segment == pinned)
+                            .build());
+                }
+            }
+            return questions.stream()
+                    .sorted(Comparator.comparingInt(HotQuestion::getFrequency).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void expireInvalidations(long now) {
+        Iterator<Long> ends = recentlyInvalidated.values().iterator();
+        while (ends.hasNext() && now - ends.next() >= 0) {
+            ends.remove();
+        }
+    }
+
+    private Entry find(Long questionId) {
+        for (Map<Long, Entry> segment : segments) {
+            Entry entry = segment.get(questionId);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void remove(Long questionId) {
+        for (Map<Long, Entry> segment : segments) {
+            if (segment.remove(questionId) != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves a question read from the probation segment to the pinned segment once it is hot. When the pinned segment
+     * is full its least recently used question goes back to probation.
+     */
+    private void pinIfHot(Long questionId, Entry entry) {
+        if (pinnedSize == 0 || sketch.frequency(questionId) < properties.getPinThreshold()
+                || probation.remove(questionId) == null) {
+            return;
+        }
+        pinned.put(questionId, entry);
+        if (pinned.size() > pinnedSize) {
+            Iterator<Map.Entry<Long, Entry>> eldest = pinned.entrySet().iterator();
+            Map.Entry<Long, Entry> unpinned = eldest.next();
+            eldest.remove();
+            probation.put(unpinned.getKey(), unpinned.getValue());
+        }
+    }
+
+    /**
+     * Adds a question to the window. The question leaving the window is kept if there is room or if it was read
+     * more often than the question it replaces, taken from probation first.
+     */
+    private void admit(Long questionId, Entry entry) {
+        remove(questionId);  // loaded concurrently by another reader
+        window.put(questionId, entry);
+        if (window.size() <= windowSize) {
+            return;
+        }
+        Iterator<Map.Entry<Long, Entry>> eldest = window.entrySet().iterator();
+        Map.Entry<Long, Entry> candidate = eldest.next();
+        eldest.remove();
+        if (probation.size() + pinned.size() < mainSize) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        evictions.incrementAndGet();
+        Map<Long, Entry> victims = probation.isEmpty() ? pinned : probation;
+        if (victims.isEmpty()) {
+            return;
+        }
+        Long victim = victims.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            rejections.incrementAndGet();
+        }
+    }
+
+    private static final class Entry {
+        private final QuestionsResponse value;
+        private final long expiresAt;
+
+        private Entry(QuestionsResponse value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-process cache of question details, bound from {@code questions.cache.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.cache")
+public class QuestionsCacheProperties {
+
+    /**
+     * Whether question details are cached at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of questions kept in the cache. Beyond it a new question is only kept if it was read more often
+     * recently than the least recently used question it would replace.
+     */
+    private int maximumSize = 10_000;
+
+    /**
+     * Maximum number of hot questions pinned in the cache, beyond it the least recently read one is unpinned.
+     */
+    private int pinnedSize = 1_000;
+
+    /**
+     * Estimated number of recent reads, at most 15, from which a cached question is pinned.
+     */
+    private int pinThreshold = 8;
+
+    /**
+     * Time after which a cached question is reloaded from the database.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * How long after its invalidation a question missing from the cache is reloaded from the primary database rather
+     * than a replica, so that a replica lagging behind the write is not cached for the whole ttl. 0 disables it.
+     */
+    private Duration primaryReloadWindow = Duration.ofSeconds(5);
+}
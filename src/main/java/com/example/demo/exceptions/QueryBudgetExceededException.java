@@ -0,0 +1,20 @@
+package com.example.demo.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request prepares more SQL statements than its budget allows and the budget is enforced,
+ * see {@link com.example.demo.persistence.StatementCounter}. It is reported as is even when a component
+ * wrapped it in another {@link QuestionsException}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QueryBudgetExceededException extends QuestionsException {
+
+    /**
+     * @param budget number of statements allowed.
+     */
+    public QueryBudgetExceededException(int budget) {
+        super("Query budget of " + budget + " statements exceeded.", null, "ERROR016", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
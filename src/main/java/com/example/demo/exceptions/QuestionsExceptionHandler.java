@@ -1,5 +1,6 @@
 package com.example.demo.exceptions;
 
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -11,12 +12,14 @@ import static java.util.Optional.ofNullable;
 
 /**
  * ExceptionHandler to handle all {@link QuestionsException} thrown by all components.
+ * Every handled exception is counted in the {@value #ERRORS_COUNTER} metric by error code.
  * @author Narasimha Reddy Guthireddy
  */
 @ControllerAdvice
 public class QuestionsExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(QuestionsExceptionHandler.class);
+    static final String ERRORS_COUNTER = "questions.errors";
 
     /** ControlleAdvice to handle all {@link QuestionsException} throws by the components.
      * @param   ex  {@link QuestionsException} thrown by the api.
@@ -24,7 +27,13 @@ public class QuestionsExceptionHandler {
      */
     @ExceptionHandler(QuestionsException.class)
     public ResponseEntity<?> handleApiException(QuestionsException ex) {
+        QueryBudgetExceededException budgetExceeded = findBudgetExceeded(ex);
+        if (budgetExceeded != null && budgetExceeded != ex) {
+            return handleApiException(budgetExceeded);
+        }
         log.error(ex.getMessage());
+        Metrics.counter(ERRORS_COUNTER, "errorCode", ex.getErrorCode(), "status", String.valueOf(ex.getStatus().value()))
+                .increment();
         return new ResponseEntity(
                 QuestionsErrorResponse.builder()
                         .errorCode(ex.getErrorCode())
@@ -44,7 +53,13 @@ public class QuestionsExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleAllExceptions(Exception ex) {
+        QueryBudgetExceededException budgetExceeded = findBudgetExceeded(ex);
+        if (budgetExceeded != null) {
+            return handleApiException(budgetExceeded);
+        }
         log.error(ex.getMessage());
+        Metrics.counter(ERRORS_COUNTER, "errorCode", "ERROR000", "status", String.valueOf(HttpStatus.INTERNAL_SERVER_ERROR.value()))
+                .increment();
         return new ResponseEntity(
                 QuestionsErrorResponse.builder()
                         .errorCode("ERROR000")
@@ -53,4 +68,16 @@ public class QuestionsExceptionHandler {
                         .build(),
                 HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    /**
+     * A statement rejected by the query budget fails inside the components, which may wrap the exception.
+     */
+    private static QueryBudgetExceededException findBudgetExceeded(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryBudgetExceededException) {
+                return (QueryBudgetExceededException) cause;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.demo.feed;
+
+import com.example.demo.model.messageReplyResponse;
+import lombok.Value;
+
+/**
+ * A reply sent on the streams of its question. The reply number is the id of the event, a client resuming with it as
+ * Last-Event-ID is sent the replies committed after this one, see
+ * {@link com.example.demo.persistence.QuestionsEntity#getReplyNumber()}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Value
+public class ReplyEvent {
+    long number;
+    messageReplyResponse reply;
+}
@@ -0,0 +1,183 @@
+package com.example.demo.feed;
+
+import com.example.demo.exceptions.QuestionsException;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of new replies to the Server-Sent Events streams of their question.
+ * Publishing only appends the reply to the bounded buffer of every subscriber of the question, a few sender threads
+ * write the buffers to the connections. A subscriber whose buffer is full is disconnected and counted in
+ * {@value #EVICTIONS_COUNTER}: its client reconnects with the Last-Event-ID header and reads the missed replies from
+ * the database, so a slow client costs neither the publishers nor the other subscribers. Events are identified by
+ * the reply number, which grows in commit order. Two replies committed at nearly the same time may still be
+ * published in either order, a client disconnected right between them resumes after the greater number.
+ * Streams are held by asynchronous requests, an idle stream holds no thread and no buffer.
+ * Replies are only delivered to subscribers connected to this instance.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class ReplyFeed implements DisposableBean {
+
+    /**
+     * Name of the events carrying a reply.
+     */
+    public static final String EVENT_NAME = "reply";
+    static final String EVICTIONS_COUNTER = "questions.reply-feed.evictions";
+
+    private final ReplyFeedProperties properties;
+    private final ConcurrentMap<Long, Set<ReplySubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+
+    public ReplyFeed(ReplyFeedProperties properties) {
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(properties.getSenderThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "reply-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reply-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream of the replies of a question. Replies published from now on are buffered until
+     * {@link Subscription#start} is called, so that none is lost while the missed replies are read.
+     *
+     * @param questionId id of the question, its existence is checked by the caller.
+     * @return subscription holding the emitter to return from the handler.
+     * @throws QuestionsException if the feed is disabled or holds {@link ReplyFeedProperties#getMaxSubscribers()}
+     *                            streams already.
+     */
+    public Subscription subscribe(Long questionId) {
+        return subscribe(questionId, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    Subscription subscribe(Long questionId, SseEmitter emitter) {
+        if (!properties.isEnabled()) {
+            throw new QuestionsException("Reply stream is disabled.", null, "ERROR017", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (count.incrementAndGet() > properties.getMaxSubscribers()) {
+            count.decrementAndGet();
+            throw new QuestionsException("Too many reply streams, retry later.", null, "ERROR017", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        ReplySubscriber subscriber = new ReplySubscriber(this, questionId, emitter, senders, properties.getBufferSize());
+        subscribers.compute(questionId, (id, set) -> {
+            Set<ReplySubscriber> added = set == null ? ConcurrentHashMap.newKeySet() : set;
+            added.add(subscriber);
+            return added;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> remove(subscriber));
+        return new Subscription(this, subscriber);
+    }
+
+    /**
+     * Hands a committed reply to the subscribers of its question.
+     *
+     * @param event new reply with its reply number.
+     */
+    public void publish(ReplyEvent event) {
+        Set<ReplySubscriber> set = subscribers.get(event.getReply().getQuestionId());
+        if (set == null) {
+            return;
+        }
+        for (ReplySubscriber subscriber : set) {
+            if (!subscriber.offer(event)) {
+                remove(subscriber);
+                subscriber.close();
+                Metrics.counter(EVICTIONS_COUNTER).increment();
+            }
+        }
+    }
+
+    /**
+     * Reads the number of open streams.
+     *
+     * @return number of subscribers of all questions.
+     */
+    public int subscriberCount() {
+        return count.get();
+    }
+
+    void remove(ReplySubscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.getQuestionId(), (id, set) -> {
+            removed[0] = set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        if (removed[0]) {
+            count.decrementAndGet();
+        }
+    }
+
+    private void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(ReplySubscriber::heartbeat));
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(ReplySubscriber::close));
+        senders.shutdown();
+    }
+
+    /**
+     * A stream opened by {@link #subscribe(Long)} which buffers replies until it is started.
+     */
+    public static final class Subscription {
+
+        private final ReplyFeed feed;
+        private final ReplySubscriber subscriber;
+
+        private Subscription(ReplyFeed feed, ReplySubscriber subscriber) {
+            this.feed = feed;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Starts the stream with the replies the client missed.
+         *
+         * @param missed   replies after the Last-Event-ID of the client in reply number order, empty without one.
+         * @param complete whether more replies were missed than given, the stream then ends after them.
+         */
+        public void start(List<ReplyEvent> missed, boolean complete) {
+            subscriber.start(missed, complete);
+        }
+
+        /**
+         * Closes a stream which cannot be started.
+         */
+        public void cancel() {
+            feed.remove(subscriber);
+            subscriber.close();
+        }
+
+        public SseEmitter getEmitter() {
+            return subscriber.getEmitter();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.feed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the Server-Sent Events feed of new replies, bound from {@code questions.reply-feed.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.reply-feed")
+public class ReplyFeedProperties {
+
+    /**
+     * Whether the stream endpoint is served.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of open streams, further subscriptions are refused.
+     */
+    private int maxSubscribers = 50_000;
+
+    /**
+     * Number of replies waiting to be sent to one subscriber, a subscriber falling further behind is disconnected.
+     */
+    private int bufferSize = 32;
+
+    /**
+     * Time after which a stream is closed, clients reconnect with the Last-Event-ID header.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * Interval of the comments sent on idle streams, which detect closed connections.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /**
+     * Number of threads writing events to the subscribers.
+     */
+    private int senderThreads = 4;
+}
@@ -0,0 +1,176 @@
+package com.example.demo.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * One open stream of {@link ReplyFeed}. Replies wait in a bounded buffer and are written by the sender threads
+ * of the feed, so a publisher never waits for the connection of a subscriber. The buffer is only allocated while
+ * replies are waiting, an idle subscriber holds its emitter and a few fields.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class ReplySubscriber {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 4;
+
+    private final ReplyFeed feed;
+    private final Long questionId;
+    private final SseEmitter emitter;
+    private final Executor senders;
+    private final int bufferSize;
+
+    /**
+     * Replies waiting to be sent, null while there are none. Guarded by this.
+     */
+    private ArrayDeque<ReplyEvent> buffer;
+    /**
+     * State of the stream, guarded by this like the buffer.
+     */
+    private boolean started;
+    private boolean sending;
+    private boolean heartbeatDue;
+    private boolean completeWhenSent;
+    private boolean closed;
+
+    ReplySubscriber(ReplyFeed feed, Long questionId, SseEmitter emitter, Executor senders, int bufferSize) {
+        this.feed = feed;
+        this.questionId = questionId;
+        this.emitter = emitter;
+        this.senders = senders;
+        this.bufferSize = bufferSize;
+    }
+
+    Long getQuestionId() {
+        return questionId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues a reply for sending. Before {@link #start} replies are only buffered.
+     *
+     * @return false if the buffer is full, the subscriber has to be evicted.
+     */
+    synchronized boolean offer(ReplyEvent reply) {
+        if (closed || completeWhenSent) {
+            return true;
+        }
+        if (buffer == null) {
+            buffer = new ArrayDeque<>(INITIAL_BUFFER_CAPACITY);
+        }
+        if (buffer.size() >= bufferSize) {
+            return false;
+        }
+        buffer.add(reply);
+        scheduleSend();
+        return true;
+    }
+
+    /**
+     * Starts sending, first the replies missed since the Last-Event-ID of the client, then the replies published
+     * since the subscription which are not among them.
+     *
+     * @param missed   replies read from the store, in reply number order.
+     * @param complete whether the stream is closed once they are sent because more replies were missed, the client
+     *                 reconnects to read the next ones.
+     */
+    synchronized void start(List<ReplyEvent> missed, boolean complete) {
+        if (!missed.isEmpty() || complete) {
+            ArrayDeque<ReplyEvent> pending = new ArrayDeque<>(missed);
+            if (!complete && buffer != null) {
+                Set<Long> replayed = new HashSet<>();
+                missed.forEach(reply -> replayed.add(reply.getNumber()));
+                buffer.stream().filter(reply -> !replayed.contains(reply.getNumber())).forEach(pending::add);
+            }
+            buffer = pending;
+            completeWhenSent = complete;
+        }
+        started = true;
+        scheduleSend();
+    }
+
+    /**
+     * Queues a comment which keeps an idle connection open and reveals a closed one.
+     */
+    synchronized void heartbeat() {
+        if (!closed) {
+            heartbeatDue = true;
+            scheduleSend();
+        }
+    }
+
+    /**
+     * Stops sending and completes the stream. Runs on a sender thread, a write in progress is never waited for.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer = null;
+        }
+        senders.execute(emitter::complete);
+    }
+
+    private void scheduleSend() {
+        if (started && !sending && !closed) {
+            sending = true;
+            senders.execute(this::send);
+        }
+    }
+
+    private void send() {
+        while (true) {
+            ReplyEvent reply = null;
+            boolean heartbeat = false;
+            synchronized (this) {
+                if (closed) {
+                    sending = false;
+                    return;
+                }
+                if (buffer != null && !buffer.isEmpty()) {
+                    reply = buffer.poll();
+                } else if (completeWhenSent) {
+                    sending = false;
+                    break;
+                } else if (heartbeatDue) {
+                    heartbeatDue = false;
+                    heartbeat = true;
+                } else {
+                    buffer = null;
+                    sending = false;
+                    return;
+                }
+            }
+            try {
+                if (heartbeat) {
+                    emitter.send(SseEmitter.event().comment(""));
+                } else {
+                    emitter.send(SseEmitter.event().id(Long.toString(reply.getNumber())).name(ReplyFeed.EVENT_NAME)
+                            .data(reply.getReply()));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                synchronized (this) {
+                    closed = true;
+                    sending = false;
+                    buffer = null;
+                }
+                feed.remove(this);
+                emitter.completeWithError(ex);
+                return;
+            }
+        }
+        feed.remove(this);
+        close();
+    }
+}
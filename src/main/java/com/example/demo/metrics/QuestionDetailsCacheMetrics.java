@@ -0,0 +1,45 @@
+package com.example.demo.metrics;
+
+import com.example.demo.cache.QuestionDetailsCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the counters of {@link QuestionDetailsCache} as metrics, read from the cache at every scrape.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestionDetailsCacheMetrics implements MeterBinder {
+
+    private final QuestionDetailsCache cache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("questions.cache.gets", cache, c -> c.stats().getHits())
+                .tag("result", "hit")
+                .description("Question details served from the cache")
+                .register(registry);
+        FunctionCounter.builder("questions.cache.gets", cache, c -> c.stats().getMisses())
+                .tag("result", "miss")
+                .description("Question details read from the database")
+                .register(registry);
+        FunctionCounter.builder("questions.cache.evictions", cache, c -> c.stats().getEvictions())
+                .description("Question details evicted because of size or age")
+                .register(registry);
+        Gauge.builder("questions.cache.size", cache, c -> c.stats().getSize())
+                .description("Question details currently cached")
+                .register(registry);
+        FunctionCounter.builder("questions.cache.rejections", cache, c -> c.stats().getRejections())
+                .description("Question details not cached because they were read less often than the cached ones")
+                .register(registry);
+        Gauge.builder("questions.cache.pinned", cache, c -> c.stats().getPinned())
+                .description("Hot question details currently pinned in the cache")
+                .register(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.metrics;
+
+import com.example.demo.exceptions.QuestionsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every call of {@link com.example.demo.service.QuestionService} and of
+ * {@link com.example.demo.persistence.QuestionStore}, whichever backend is configured. Timers are tagged with the
+ * called method, the outcome and the error code of a {@link QuestionsException}; their percentiles are configured
+ * under {@code management.metrics.distribution}. Endpoints are timed by Spring Boot as {@code http.server.requests}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class QuestionsMetricsAspect {
+
+    static final String SERVICE_TIMER = "questions.service";
+    static final String REPOSITORY_TIMER = "questions.repository";
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    @Around("execution(public * com.example.demo.service.QuestionService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("this(com.example.demo.persistence.QuestionStore)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "SUCCESS";
+        String errorCode = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (QuestionsException ex) {
+            outcome = "ERROR";
+            errorCode = ex.getErrorCode();
+            throw ex;
+        } catch (Throwable ex) {
+            outcome = "ERROR";
+            throw ex;
+        } finally {
+            sample.stop(registry.timer(name,
+                    "method", joinPoint.getSignature().getName(),
+                    "outcome", outcome,
+                    "errorCode", errorCode));
+        }
+    }
+}
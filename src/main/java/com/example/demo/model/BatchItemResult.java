@@ -0,0 +1,21 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Result of one item of a bulk create request, in request order: the id of the created question or reply, or the
+ * error code and message of an item which was not created.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Builder
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private int index;
+    private Long id;
+    private String errorCode;
+    private String message;
+}
@@ -1,6 +1,7 @@
 package com.example.demo.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.springframework.validation.annotation.Validated;
 
@@ -13,6 +14,7 @@ import org.springframework.validation.annotation.Validated;
 
 
 @Builder
+@AllArgsConstructor
 public class QuestionDetails {
     @JsonProperty("id")
     private Long id = null;
@@ -30,6 +30,12 @@ public class QuestionsResponse {
     @Valid
     private List<ReplyDetails> replies = null;
 
+    @JsonProperty("totalReplies")
+    private Long totalReplies = null;
+
+    @JsonProperty("nextRepliesCursor")
+    private String nextRepliesCursor = null;
+
     /**
      * Get id
      *
@@ -77,5 +83,28 @@ public class QuestionsResponse {
         return replies;
     }
 
+    /**
+     * Get totalReplies
+     *
+     * @return totalReplies
+     **/
+
+
+    public Long getTotalReplies() {
+        return totalReplies;
+    }
+
+
+    /**
+     * Cursor of the next page of replies, null on the last page.
+     *
+     * @return nextRepliesCursor
+     **/
+
+
+    public String getNextRepliesCursor() {
+        return nextRepliesCursor;
+    }
+
 }
 
@@ -0,0 +1,19 @@
+package com.example.demo.persistence;
+
+/**
+ * Projection of a question or reply on what the search index and the read model need.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public interface IndexedMessage {
+    Long getId();
+
+    /**
+     * Id of the question the message belongs to, the id of the message itself for a question.
+     */
+    Long getQuestionId();
+
+    String getAuthor();
+
+    String getMessage();
+}
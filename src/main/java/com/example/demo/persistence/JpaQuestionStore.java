@@ -0,0 +1,207 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link QuestionStore} backed by the relational database through {@link QuestionsRepository}.
+ * This is the default backend, selected with {@code questions.storage.type=jpa}.
+ * Every write of a question or of its replies also writes its {@link QuestionSummaryEntity} in the same transaction,
+ * the question listing is read from the summaries only. The row by row reads bypass the entity manager and read the
+ * columns with plain JDBC in the transaction of the caller, their statements are counted by {@link StatementCounter}
+ * like those of Hibernate.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class JpaQuestionStore implements QuestionStore {
+
+    private static final StatementCounter STATEMENTS = new StatementCounter();
+    private static final String QUESTION_ROWS_SQL = "select id, author, message, reply_count from question_summary "
+            + "where id > ? order by id limit ?";
+    private static final String INCREMENT_REPLY_COUNT_SQL = "update questions_entity "
+            + "set reply_count = reply_count + ?, version = version + ? where id = ?";
+    private static final String REPLY_ROWS_SQL = "select id, author, message from questions_entity "
+            + "where parent_question_id = ? and id > ? order by id limit ?";
+
+    private final QuestionsRepository repository;
+    private final QuestionSummaryRepository summaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public QuestionsEntity save(QuestionsEntity entity) {
+        QuestionsEntity saved = repository.save(entity);
+        if (saved.getParentQuestionId() == null) {
+            summaryRepository.save(QuestionSummaryEntity.of(saved, Instant.now()));
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<QuestionsEntity> saveAll(List<QuestionsEntity> entities) {
+        List<QuestionsEntity> saved = repository.saveAll(entities);
+        Instant now = Instant.now();
+        List<QuestionSummaryEntity> summaries = saved.stream()
+                .filter(entity -> entity.getParentQuestionId() == null)
+                .map(entity -> QuestionSummaryEntity.of(entity, now))
+                .collect(Collectors.toList());
+        if (!summaries.isEmpty()) {
+            summaryRepository.saveAll(summaries);
+        }
+        return saved;
+    }
+
+    /**
+     * Increments the reply count first: the update tells whether the question exists, returns the new version of the
+     * question which numbers the reply, and locks the question row until the reply is inserted in the same
+     * transaction, so reply numbers grow in commit order.
+     */
+    @Override
+    @Transactional
+    public Optional<QuestionsEntity> addReply(Long questionId, QuestionsEntity reply) {
+        OptionalLong version = incrementReplyCount(questionId, 1);
+        if (!version.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(repository.save(reply(questionId, reply, version.getAsLong())));
+    }
+
+    @Override
+    @Transactional
+    public Optional<List<QuestionsEntity>> addReplies(Long questionId, List<QuestionsEntity> replies) {
+        OptionalLong version = incrementReplyCount(questionId, replies.size());
+        if (!version.isPresent()) {
+            return Optional.empty();
+        }
+        long first = version.getAsLong() - replies.size() + 1;
+        List<QuestionsEntity> numbered = new ArrayList<>(replies.size());
+        for (int i = 0; i < replies.size(); i++) {
+            numbered.add(reply(questionId, replies.get(i), first + i));
+        }
+        return Optional.of(repository.saveAll(numbered));
+    }
+
+    /**
+     * Adds to the reply count of a question and to its version with a single SQL increment, so concurrent replies
+     * never lose an update. The version grows by the number of replies, which keeps one reply number per reply.
+     *
+     * @return new version of the question, empty if the question does not exist.
+     */
+    private OptionalLong incrementReplyCount(Long id, long delta) {
+        GeneratedKeyHolder version = new GeneratedKeyHolder();
+        int updated = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STATEMENTS.inspect(INCREMENT_REPLY_COUNT_SQL),
+                    new String[]{"version"});
+            statement.setLong(1, delta);
+            statement.setLong(2, delta);
+            statement.setLong(3, id);
+            return statement;
+        }, version);
+        if (updated == 0) {
+            return OptionalLong.empty();
+        }
+        summaryRepository.recordReplies(id, delta, Instant.now());
+        return OptionalLong.of(version.getKey().longValue());
+    }
+
+    private static QuestionsEntity reply(Long questionId, QuestionsEntity reply, long replyNumber) {
+        return QuestionsEntity.builder()
+                .author(reply.getAuthor())
+                .message(reply.getMessage())
+                .parentQuestionId(questionId)
+                .replyNumber(replyNumber)
+                .build();
+    }
+
+    @Override
+    public Optional<QuestionsEntity> findById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    public List<QuestionDetails> findAllQuestionDetails() {
+        return summaryRepository.findAllSummaries();
+    }
+
+    @Override
+    public Stream<QuestionDetails> streamAllQuestionDetails() {
+        return repository.streamAllQuestionDetails();
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsByIds(Collection<Long> ids) {
+        return repository.findQuestionDetailsByIds(ids);
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsPage(long after, int limit) {
+        return summaryRepository.findSummaryPage(after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit) {
+        return repository.findReplyDetailsPage(questionId, after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<QuestionsEntity> findRepliesAfterNumber(Long questionId, long after, int limit) {
+        return repository.findRepliesAfterNumber(questionId, after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public void forEachQuestionDetails(long after, int limit, MessageRowHandler handler) {
+        jdbcTemplate.query(STATEMENTS.inspect(QUESTION_ROWS_SQL), (RowCallbackHandler) rs ->
+                handler.row(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4)), after, limit);
+    }
+
+    @Override
+    public void forEachReplyDetails(Long questionId, long after, int limit, MessageRowHandler handler) {
+        jdbcTemplate.query(STATEMENTS.inspect(REPLY_ROWS_SQL), (RowCallbackHandler) rs ->
+                handler.row(rs.getLong(1), rs.getString(2), rs.getString(3), 0), questionId, after, limit);
+    }
+
+    @Override
+    public Stream<IndexedMessage> streamIndexedMessages() {
+        return repository.streamIndexedMessages();
+    }
+
+    /**
+     * Repairs the reply counts of the questions, then brings the summaries in line with the questions: missing
+     * summaries are created and drifted ones are copied over.
+     *
+     * @return number of repaired questions and summaries.
+     */
+    @Override
+    @Transactional
+    public int reconcileReplyCounts() {
+        int repaired = repository.reconcileReplyCounts();
+        return repaired + summaryRepository.insertMissingSummaries() + summaryRepository.repairSummaries();
+    }
+}
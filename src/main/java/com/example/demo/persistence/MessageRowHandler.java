@@ -0,0 +1,18 @@
+package com.example.demo.persistence;
+
+/**
+ * Receives the columns of one question or reply row as they are read, without any object built for the row.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@FunctionalInterface
+public interface MessageRowHandler {
+
+    /**
+     * @param id      id of the question or reply.
+     * @param author  author of the message.
+     * @param message text of the message.
+     * @param replies reply count of a question, 0 for a reply.
+     */
+    void row(long id, String author, String message, long replies);
+}
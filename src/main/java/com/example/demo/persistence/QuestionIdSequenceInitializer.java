@@ -0,0 +1,47 @@
+package com.example.demo.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the questions_seq sequence past the ids already in the database once all beans are created, before the web
+ * server accepts requests. A database whose ids came from hibernate_sequence, before questions_seq existed, gets a
+ * fresh sequence from the schema update which would hand out those ids again. The sequence is only ever advanced,
+ * never restarted, so that instances starting together against the same database cannot hand out a block twice.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class QuestionIdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionIdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QuestionIdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from questions_entity", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // a sequence value is the last id of a block, every later block starts after maxId once it reaches
+        // maxId + the block size
+        long value = jdbcTemplate.queryForObject("select next value for questions_seq", Long.class);
+        long behind = maxId + QuestionsEntity.ID_ALLOCATION_SIZE - value;
+        if (behind > 0) {
+            long blocks = (behind + QuestionsEntity.ID_ALLOCATION_SIZE - 1) / QuestionsEntity.ID_ALLOCATION_SIZE;
+            value = jdbcTemplate.queryForObject("select max(next value for questions_seq) from system_range(1, ?)",
+                    Long.class, blocks);
+            log.info("Advanced questions_seq to {} past the existing question id {}", value, maxId);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of questions and replies used by the services, independent of how the messages are persisted.
+ * The backend is selected with {@code questions.storage.type}, see {@link StorageProperties}.
+ * Questions and replies share one id space and ids grow in insertion order, every keyset page relies on that.
+ * Ids do not grow in commit order across instances, reading what was committed since a point uses reply numbers.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public interface QuestionStore {
+
+    /**
+     * Saves a new question, or a new reply when the parent question id is set. The id is allocated by the store.
+     * A reply saved this way is neither counted in the reply count of its question nor numbered, replies are added
+     * with {@link #addReplies(Long, List)}.
+     *
+     * @param entity question or reply without id.
+     * @return the saved question or reply with its id.
+     */
+    QuestionsEntity save(QuestionsEntity entity);
+
+    /**
+     * Saves new questions or replies, see {@link #save(QuestionsEntity)}.
+     *
+     * @param entities questions or replies without id.
+     * @return the saved questions or replies with their ids, in the given order.
+     */
+    List<QuestionsEntity> saveAll(List<QuestionsEntity> entities);
+
+    /**
+     * Adds a reply to a question, see {@link #addReplies(Long, List)}.
+     *
+     * @param questionId id of the question.
+     * @param reply      reply without id.
+     * @return the saved reply with its id, empty if the question does not exist.
+     */
+    default Optional<QuestionsEntity> addReply(Long questionId, QuestionsEntity reply) {
+        return addReplies(questionId, Collections.singletonList(reply)).map(saved -> saved.get(0));
+    }
+
+    /**
+     * Adds replies to a question: the replies are saved, the reply count of the question is increased by their
+     * number and its version incremented, and a reply is never saved without being counted or counted without being
+     * saved. Every reply gets its {@link QuestionsEntity#getReplyNumber() reply number}. Backends which cannot write
+     * a batch atomically keep the replies written before a failure, each of them counted. Concurrent replies are not
+     * lost.
+     *
+     * @param questionId id of the question.
+     * @param replies    replies without id, their parent question id is set by the store.
+     * @return the saved replies with their ids and reply numbers, in the given order, empty if the question does not
+     * exist.
+     */
+    Optional<List<QuestionsEntity>> addReplies(Long questionId, List<QuestionsEntity> replies);
+
+    /**
+     * Reads a question or reply without its relations.
+     *
+     * @param id id of the question or reply.
+     * @return the question or reply, empty if it does not exist.
+     */
+    Optional<QuestionsEntity> findById(Long id);
+
+    /**
+     * Reads only the version of a question.
+     *
+     * @param id id of the question.
+     * @return version of the question, empty if the question does not exist.
+     */
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Reads all questions with their reply count.
+     *
+     * @return details of all questions ordered by id.
+     */
+    List<QuestionDetails> findAllQuestionDetails();
+
+    /**
+     * Streams all questions with their reply count without holding them all in memory.
+     * Has to be called in a transaction and the stream has to be closed after use.
+     *
+     * @return details of all questions ordered by id.
+     */
+    Stream<QuestionDetails> streamAllQuestionDetails();
+
+    /**
+     * Reads the questions with the given ids with their reply count.
+     *
+     * @param ids ids of the questions.
+     * @return details of the questions, in no particular order.
+     */
+    List<QuestionDetails> findQuestionDetailsByIds(Collection<Long> ids);
+
+    /**
+     * Keyset page of questions with their reply count: the questions with an id greater than the given one,
+     * ordered by id.
+     *
+     * @param after id of the last question of the previous page, 0 for the first page.
+     * @param limit maximum number of questions in the page.
+     * @return details of the questions of the page.
+     */
+    List<QuestionDetails> findQuestionDetailsPage(long after, int limit);
+
+    /**
+     * Keyset page of the replies of a question: the replies with an id greater than the given one, ordered by id.
+     *
+     * @param questionId id of the question.
+     * @param after      id of the last reply of the previous page, 0 for the first page.
+     * @param limit      maximum number of replies in the page.
+     * @return details of the replies of the page.
+     */
+    List<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit);
+
+    /**
+     * Replies of a question in commit order: the replies with a reply number greater than the given one, ordered by
+     * reply number, see {@link QuestionsEntity#getReplyNumber()}.
+     *
+     * @param questionId id of the question.
+     * @param after      reply number of the last reply already read.
+     * @param limit      maximum number of replies.
+     * @return the replies with their ids and reply numbers.
+     */
+    List<QuestionsEntity> findRepliesAfterNumber(Long questionId, long after, int limit);
+
+    /**
+     * Same page as {@link #findQuestionDetailsPage(long, int)}, handed to the handler row by row. Backends reading
+     * from a database pass the columns straight from the result set, by default the page is read and then handed over.
+     *
+     * @param after   id of the last question of the previous page, 0 for the first page.
+     * @param limit   maximum number of questions in the page.
+     * @param handler receives the questions in id order.
+     */
+    default void forEachQuestionDetails(long after, int limit, MessageRowHandler handler) {
+        for (QuestionDetails question : findQuestionDetailsPage(after, limit)) {
+            handler.row(question.getId(), question.getAuthor(), question.getMessage(), question.getReplies());
+        }
+    }
+
+    /**
+     * Same page as {@link #findReplyDetailsPage(Long, long, int)}, handed to the handler row by row, see
+     * {@link #forEachQuestionDetails(long, int, MessageRowHandler)}.
+     *
+     * @param questionId id of the question.
+     * @param after      id of the last reply of the previous page, 0 for the first page.
+     * @param limit      maximum number of replies in the page.
+     * @param handler    receives the replies in id order.
+     */
+    default void forEachReplyDetails(Long questionId, long after, int limit, MessageRowHandler handler) {
+        for (ReplyDetails reply : findReplyDetailsPage(questionId, after, limit)) {
+            handler.row(reply.getId(), reply.getAuthor(), reply.getMessage(), 0);
+        }
+    }
+
+    /**
+     * Streams the messages of all questions and replies for the search index and the read model.
+     * Has to be called in a transaction and the stream has to be closed after use.
+     *
+     * @return messages of all questions and replies.
+     */
+    Stream<IndexedMessage> streamIndexedMessages();
+
+    /**
+     * Repairs the reply count of every question whose stored count drifted from its actual replies, together with
+     * any data the backend derives from it.
+     *
+     * @return number of repaired questions.
+     */
+    int reconcileReplyCounts();
+}
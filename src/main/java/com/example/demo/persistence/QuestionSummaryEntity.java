@@ -0,0 +1,77 @@
+package com.example.demo.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.Instant;
+
+/**
+ * JPA Entity of the read side of the questions: one row per question with everything the question listing needs,
+ * so the listing never touches the table of questions and replies. Rows are written by {@link JpaQuestionStore}
+ * in the transaction of the write they reflect.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "question_summary")
+public class QuestionSummaryEntity implements Persistable<Long> {
+
+    /**
+     * Id of the question, assigned from {@link QuestionsEntity}.
+     */
+    @Id
+    private Long id;
+    private String author;
+    private String message;
+    private long replyCount;
+    /**
+     * Follows the version of the question.
+     */
+    private long version;
+    /**
+     * When the question was asked or last replied to.
+     */
+    private Instant lastActivity;
+
+    /**
+     * Ids are assigned, so Spring Data cannot tell a new row from its id. Without this flag every save would
+     * select the row first to decide between insert and merge.
+     */
+    @Transient
+    private boolean persisted;
+
+    static QuestionSummaryEntity of(QuestionsEntity question, Instant lastActivity) {
+        return QuestionSummaryEntity.builder()
+                .id(question.getId())
+                .author(question.getAuthor())
+                .message(question.getMessage())
+                .replyCount(question.getReplyCount())
+                .version(question.getVersion())
+                .lastActivity(lastActivity)
+                .build();
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
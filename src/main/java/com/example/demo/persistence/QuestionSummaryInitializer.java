@@ -0,0 +1,39 @@
+package com.example.demo.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates the missing {@link QuestionSummaryEntity} rows once all beans are created, before the web server accepts
+ * requests, so that questions written before the summary table existed show up in the listing.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class QuestionSummaryInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionSummaryInitializer.class);
+
+    private final QuestionSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public QuestionSummaryInitializer(QuestionSummaryRepository summaryRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer created = transactionTemplate.execute(status -> summaryRepository.insertMissingSummaries());
+        if (created != null && created > 0) {
+            log.info("Created the summary of {} questions", created);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.QuestionDetails;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * JPA repository for QuestionSummaryEntity.
+ * Serves the question listing from the summary table alone, whatever the number of replies.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public interface QuestionSummaryRepository extends JpaRepository<QuestionSummaryEntity, Long> {
+
+    /**
+     * Reads all question summaries without loading any entity.
+     *
+     * @return details of all questions ordered by id.
+     */
+    @Query("select new com.example.demo.model.QuestionDetails(s.id, s.author, s.message, s.replyCount) "
+            + "from QuestionSummaryEntity s order by s.id")
+    List<QuestionDetails> findAllSummaries();
+
+    /**
+     * Keyset page of question summaries, same paging rules as {@link QuestionsRepository#findQuestionDetailsPage}.
+     *
+     * @param after    id of the last question of the previous page, 0 for the first page.
+     * @param pageable page size, the offset of the pageable is expected to be 0.
+     * @return details of the questions of the page.
+     */
+    @Query("select new com.example.demo.model.QuestionDetails(s.id, s.author, s.message, s.replyCount) "
+            + "from QuestionSummaryEntity s where s.id > :after order by s.id")
+    List<QuestionDetails> findSummaryPage(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Records replies to a question with a single SQL increment, the same way as the reply count of the question is
+     * incremented by {@link JpaQuestionStore#addReplies}.
+     *
+     * @param id    id of the question.
+     * @param delta number of replies added.
+     * @param at    time of the replies.
+     * @return number of updated rows, 0 if the question has no summary.
+     */
+    @Modifying
+    @Query("update QuestionSummaryEntity s set s.replyCount = s.replyCount + :delta, s.version = s.version + 1, "
+            + "s.lastActivity = :at where s.id = :id")
+    int recordReplies(@Param("id") Long id, @Param("delta") long delta, @Param("at") Instant at);
+
+    /**
+     * Creates the summary of every question which has none, e.g. questions written before the summary table existed.
+     *
+     * @return number of created summaries.
+     */
+    @Modifying
+    @Query(value = "insert into question_summary (id, author, message, reply_count, version, last_activity) "
+            + "select q.id, q.author, q.message, q.reply_count, q.version, current_timestamp from questions_entity q "
+            + "where q.parent_question_id is null "
+            + "and not exists (select 1 from question_summary s where s.id = q.id)", nativeQuery = true)
+    int insertMissingSummaries();
+
+    /**
+     * Copies the reply count and version of the question to every summary which drifted from it.
+     *
+     * @return number of repaired summaries.
+     */
+    @Modifying
+    @Query("update QuestionSummaryEntity s "
+            + "set s.replyCount = (select q.replyCount from QuestionsEntity q where q.id = s.id), "
+            + "s.version = (select q.version from QuestionsEntity q where q.id = s.id) "
+            + "where exists (select q.id from QuestionsEntity q where q.id = s.id "
+            + "and (q.replyCount <> s.replyCount or q.version <> s.version))")
+    int repairSummaries();
+}
@@ -21,12 +21,34 @@ import java.util.List;
 @Entity
 public class QuestionsEntity {
 
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Ids are allocated in blocks of {@value #ID_ALLOCATION_SIZE} from the database sequence, each block is handed
+     * out from memory so inserts do not need a sequence round trip each. The sequence itself increments by the
+     * block size, which keeps the blocks of several application instances disjoint.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "questions_seq")
+    @SequenceGenerator(name = "questions_seq", sequenceName = "questions_seq", allocationSize = QuestionsEntity.ID_ALLOCATION_SIZE)
     private Long id;
     private String author;
     private String message;
     private Long parentQuestionId;
+    /**
+     * Number of replies of the question, maintained by the write path so that reads do not count the replies.
+     */
+    private long replyCount;
+    /**
+     * Incremented whenever the question or its set of replies changes, used to build entity tags.
+     */
+    private long version;
+    /**
+     * Position of a reply among the replies of its question in commit order, assigned by
+     * {@link QuestionStore#addReplies}: a reply committed after another one has a greater number, which ids do not
+     * guarantee once several instances allocate them. Numbers may have gaps. Null for questions.
+     */
+    private Long replyNumber;
 
     @OneToMany(mappedBy = "question", fetch = FetchType.LAZY)
     private List<QuestionsEntity> replies;
@@ -1,8 +1,21 @@
 package com.example.demo.persistence;
 
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * JPA repository for QuestionsEntity.
@@ -12,4 +25,117 @@ import java.util.List;
  */
 public interface QuestionsRepository  extends JpaRepository<QuestionsEntity, Long> {
     List<QuestionsEntity> findByParentQuestionIdIsNull();
+
+    /**
+     * Reads all questions with their reply count in one query, without loading any entity.
+     *
+     * @return details of all questions ordered by id.
+     */
+    @Query("select new com.example.demo.model.QuestionDetails(q.id, q.author, q.message, q.replyCount) "
+            + "from QuestionsEntity q where q.parentQuestionId is null order by q.id")
+    List<QuestionDetails> findAllQuestionDetails();
+
+    /**
+     * Streams all questions with their reply count from a database cursor, without loading any entity.
+     * Has to be called in a transaction and the stream has to be closed after use.
+     *
+     * @return details of all questions ordered by id.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.demo.model.QuestionDetails(q.id, q.author, q.message, q.replyCount) "
+            + "from QuestionsEntity q where q.parentQuestionId is null order by q.id")
+    Stream<QuestionDetails> streamAllQuestionDetails();
+
+    /**
+     * Reads the questions with the given ids with their reply count, without loading any entity.
+     *
+     * @param ids ids of the questions.
+     * @return details of the questions, in no particular order.
+     */
+    @Query("select new com.example.demo.model.QuestionDetails(q.id, q.author, q.message, q.replyCount) "
+            + "from QuestionsEntity q where q.id in :ids")
+    List<QuestionDetails> findQuestionDetailsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams the messages of all questions and replies from a database cursor for the search index and the read model.
+     * Has to be called in a transaction and the stream has to be closed after use.
+     *
+     * @return messages of all questions and replies.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select q.id as id, coalesce(q.parentQuestionId, q.id) as questionId, q.author as author, "
+            + "q.message as message "
+            + "from QuestionsEntity q")
+    Stream<IndexedMessage> streamIndexedMessages();
+
+    /**
+     * Keyset page of questions with their reply count: the questions with an id greater than the given one,
+     * ordered by id, read in one query without loading any entity.
+     *
+     * @param after    id of the last question of the previous page, 0 for the first page.
+     * @param pageable page size, the offset of the pageable is expected to be 0.
+     * @return details of the questions of the page.
+     */
+    @Query("select new com.example.demo.model.QuestionDetails(q.id, q.author, q.message, q.replyCount) "
+            + "from QuestionsEntity q where q.parentQuestionId is null and q.id > :after order by q.id")
+    List<QuestionDetails> findQuestionDetailsPage(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Keyset page of the replies of a question: the replies with an id greater than the given one, ordered by id,
+     * read without loading any entity.
+     *
+     * @param questionId id of the question.
+     * @param after      id of the last reply of the previous page, 0 for the first page.
+     * @param pageable   page size, the offset of the pageable is expected to be 0.
+     * @return details of the replies of the page.
+     */
+    @Query("select new com.example.demo.model.ReplyDetails(r.id, r.author, r.message) "
+            + "from QuestionsEntity r where r.parentQuestionId = :questionId and r.id > :after order by r.id")
+    List<ReplyDetails> findReplyDetailsPage(@Param("questionId") Long questionId, @Param("after") Long after, Pageable pageable);
+
+    /**
+     * Reads only the version of a question.
+     *
+     * @param id id of the question.
+     * @return version of the question, empty if the question does not exist.
+     */
+    @Query("select q.version from QuestionsEntity q where q.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Replies of a question after a reply number, ordered by reply number.
+     *
+     * @param questionId id of the question.
+     * @param after      reply number of the last reply already read.
+     * @param pageable   maximum number of replies, the offset of the pageable is expected to be 0.
+     * @return the replies.
+     */
+    @Query("select r from QuestionsEntity r where r.parentQuestionId = :questionId and r.replyNumber > :after "
+            + "order by r.replyNumber")
+    List<QuestionsEntity> findRepliesAfterNumber(@Param("questionId") Long questionId, @Param("after") long after,
+                                                 Pageable pageable);
+
+    /**
+     * Numbers the replies written before replies were numbered, in id order and below every number given since:
+     * the newest of them gets 0 and the others count down from it.
+     *
+     * @return number of numbered replies.
+     */
+    @Modifying
+    @Query(value = "update questions_entity r set reply_number = -(select count(*) from questions_entity o "
+            + "where o.parent_question_id = r.parent_question_id and o.id > r.id) "
+            + "where r.parent_question_id is not null and r.reply_number is null", nativeQuery = true)
+    int numberUnnumberedReplies();
+
+    /**
+     * Repairs the reply count of every question whose stored count drifted from its actual replies.
+     *
+     * @return number of repaired questions.
+     */
+    @Modifying
+    @Query("update QuestionsEntity q "
+            + "set q.replyCount = (select count(r.id) from QuestionsEntity r where r.parentQuestionId = q.id), "
+            + "q.version = q.version + 1 "
+            + "where q.replyCount <> (select count(r.id) from QuestionsEntity r where r.parentQuestionId = q.id)")
+    int reconcileReplyCounts();
 }
@@ -0,0 +1,58 @@
+package com.example.demo.persistence;
+
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Hands out question ids for the reactive api from blocks of the questions_seq sequence, with the same pooled
+ * semantics as the JPA id generator of {@link QuestionsEntity}: a sequence value is the last id of a block of
+ * {@value QuestionsEntity#ID_ALLOCATION_SIZE} ids. Both apis can therefore write to the same database.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+class ReactiveIdAllocator {
+
+    private final int blockSize;
+    private final Supplier<Mono<Long>> nextSequenceValue;
+    private long next = 1;
+    private long last = 0;
+
+    ReactiveIdAllocator(int blockSize, Supplier<Mono<Long>> nextSequenceValue) {
+        this.blockSize = blockSize;
+        this.nextSequenceValue = nextSequenceValue;
+    }
+
+    /**
+     * @return next free id, reads the sequence only when the current block is used up.
+     */
+    Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Long id = take();
+            return id != null ? Mono.just(id) : nextBlock().map(this::startBlock);
+        });
+    }
+
+    private synchronized Long take() {
+        return next <= last ? next++ : null;
+    }
+
+    /**
+     * Concurrent callers may each read a new block, the last one wins and the rest of the other blocks is skipped.
+     * Ids are never handed out twice, they may only leave gaps.
+     */
+    private synchronized long startBlock(long blockLast) {
+        next = blockLast - blockSize + 2;
+        last = blockLast;
+        return blockLast - blockSize + 1;
+    }
+
+    /**
+     * The first value of a fresh sequence is its start value 1 rather than the end of a block, like the JPA id
+     * generator that value is skipped.
+     */
+    private Mono<Long> nextBlock() {
+        return nextSequenceValue.get()
+                .flatMap(value -> value < blockSize ? nextSequenceValue.get() : Mono.just(value));
+    }
+}
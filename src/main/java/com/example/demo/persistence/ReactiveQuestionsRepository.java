@@ -0,0 +1,125 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking R2DBC counterpart of {@link QuestionsRepository} for the reactive api, reading and writing
+ * the table mapped by {@link QuestionsEntity}. Reads map rows straight to the model DTOs.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveQuestionsRepository {
+
+    private final DatabaseClient client;
+    private final ReactiveIdAllocator ids;
+
+    public ReactiveQuestionsRepository(DatabaseClient client) {
+        this.client = client;
+        this.ids = new ReactiveIdAllocator(QuestionsEntity.ID_ALLOCATION_SIZE,
+                () -> client.execute("select next value for questions_seq")
+                        .map(row -> row.get(0, Long.class))
+                        .one());
+    }
+
+    /**
+     * Inserts a question or a reply. A reply is numbered with the version of its question, so the reply count of the
+     * question has to be incremented before in the same transaction, see {@link QuestionsEntity#getReplyNumber()}.
+     *
+     * @param author           author of the message.
+     * @param message          message.
+     * @param parentQuestionId id of the question replied to, null for a question.
+     * @return id of the new row.
+     */
+    public Mono<Long> insert(String author, String message, Long parentQuestionId) {
+        return ids.nextId().flatMap(id -> {
+            DatabaseClient.GenericExecuteSpec insert = client.execute(
+                    "insert into questions_entity (id, author, message, parent_question_id, reply_count, version, "
+                            + "reply_number) values (:id, :author, :message, :parentQuestionId, 0, 0, "
+                            + "(select q.version from questions_entity q where q.id = :parentQuestionId))")
+                    .bind("id", id)
+                    .bind("author", author)
+                    .bind("message", message);
+            insert = parentQuestionId != null
+                    ? insert.bind("parentQuestionId", parentQuestionId)
+                    : insert.bindNull("parentQuestionId", Long.class);
+            return insert.fetch().rowsUpdated().thenReturn(id);
+        });
+    }
+
+    /**
+     * Adds to the reply count and to the version of a question like {@link JpaQuestionStore#addReplies}.
+     *
+     * @param id    id of the question.
+     * @param delta number of replies added.
+     * @return number of updated rows, 0 if the question does not exist.
+     */
+    public Mono<Integer> incrementReplyCount(Long id, long delta) {
+        return client.execute("update questions_entity set reply_count = reply_count + :delta, version = version + :delta "
+                + "where id = :id")
+                .bind("delta", delta)
+                .bind("id", id)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Same as {@link QuestionsRepository#findQuestionDetailsPage}.
+     *
+     * @param after id of the last question of the previous page, 0 for the first page.
+     * @param limit page size.
+     * @return details of the questions of the page.
+     */
+    public Flux<QuestionDetails> findQuestionDetailsPage(long after, int limit) {
+        return client.execute("select id, author, message, reply_count from questions_entity "
+                + "where parent_question_id is null and id > :after order by id limit :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveQuestionsRepository::toQuestionDetails)
+                .all();
+    }
+
+    /**
+     * Reads a question or a reply with its reply count, like {@link QuestionsRepository#findById(Object)}.
+     *
+     * @param id id of the question.
+     * @return details of the question, empty if it does not exist.
+     */
+    public Mono<QuestionDetails> findQuestionDetails(Long id) {
+        return client.execute("select id, author, message, reply_count from questions_entity where id = :id")
+                .bind("id", id)
+                .map(ReactiveQuestionsRepository::toQuestionDetails)
+                .one();
+    }
+
+    /**
+     * Same as {@link QuestionsRepository#findReplyDetailsPage}.
+     *
+     * @param questionId id of the question.
+     * @param after      id of the last reply of the previous page, 0 for the first page.
+     * @param limit      page size.
+     * @return details of the replies of the page.
+     */
+    public Flux<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit) {
+        return client.execute("select id, author, message from questions_entity "
+                + "where parent_question_id = :questionId and id > :after order by id limit :limit")
+                .bind("questionId", questionId)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(row -> new ReplyDetails(row.get("id", Long.class), row.get("author", String.class),
+                        row.get("message", String.class)))
+                .all();
+    }
+
+    private static QuestionDetails toQuestionDetails(Row row) {
+        return new QuestionDetails(row.get("id", Long.class), row.get("author", String.class),
+                row.get("message", String.class), row.get("reply_count", Long.class));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Numbers the replies written before the {@link QuestionsEntity#getReplyNumber() reply number} column existed once
+ * all beans are created, before the web server accepts requests, so that reply streams can resume after them.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class ReplyNumberInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplyNumberInitializer.class);
+
+    private final QuestionsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReplyNumberInitializer(QuestionsRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer numbered = transactionTemplate.execute(status -> repository.numberUnnumberedReplies());
+        if (numbered != null && numbered > 0) {
+            log.info("Numbered {} replies", numbered);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.persistence;
+
+import com.example.demo.exceptions.QueryBudgetExceededException;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Hibernate statement inspector counting the SQL statements prepared on the current thread while a {@link Scope}
+ * is open. Registered with {@code hibernate.session_factory.statement_inspector}, it never changes a statement.
+ * A scope opened with a rejecting budget fails the statement exceeding it before it reaches the database.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCounter.class);
+    private static final ThreadLocal<Deque<Scope>> SCOPES = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes != null) {
+            for (Scope scope : scopes) {
+                scope.record(sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting the statements of the current thread, without budget.
+     *
+     * @return scope to close once done, scopes may be nested.
+     */
+    public static Scope open() {
+        return open(Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Starts counting the statements of the current thread.
+     *
+     * @param budget number of statements allowed in the scope.
+     * @param reject whether a statement exceeding the budget fails with {@link QueryBudgetExceededException}.
+     * @return scope to close once done, scopes may be nested.
+     */
+    public static Scope open(int budget, boolean reject) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        Scope scope = new Scope(budget, reject);
+        scopes.push(scope);
+        return scope;
+    }
+
+    /**
+     * Statements counted between {@link #open(int, boolean)} and {@link #close()} on one thread.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final int budget;
+        private final boolean reject;
+        private int count;
+
+        private Scope(int budget, boolean reject) {
+            this.budget = budget;
+            this.reject = reject;
+        }
+
+        private void record(String sql) {
+            count++;
+            if (reject && count > budget) {
+                log.warn("Rejected statement beyond the query budget of {}: {}", budget, sql);
+                throw new QueryBudgetExceededException(budget);
+            }
+        }
+
+        /**
+         * @return number of statements prepared in the scope so far.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public boolean isExceeded() {
+            return count > budget;
+        }
+
+        /**
+         * Stops counting, has to be called on the thread which opened the scope.
+         */
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            if (scopes != null) {
+                scopes.remove(this);
+                if (scopes.isEmpty()) {
+                    SCOPES.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.persistence;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the storage of questions and replies, bound from {@code questions.storage.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.storage")
+public class StorageProperties {
+
+    /**
+     * Backend of {@link QuestionStore}: "jpa" for the relational database, "segment" for memory-mapped segment files,
+     * "journal" for memory backed by snapshots and a write-ahead log, "sharded" for several databases.
+     */
+    private String type = "jpa";
+
+    private final Segment segment = new Segment();
+
+    private final Journal journal = new Journal();
+
+    private final Sharded sharded = new Sharded();
+
+    @Getter
+    @Setter
+    public static class Segment {
+
+        /**
+         * Directory of the segment files, created if missing.
+         */
+        private String directory = "./data/segments";
+
+        /**
+         * Size of a segment file, a new segment is started when a record does not fit in the current one.
+         */
+        private DataSize size = DataSize.ofMegabytes(64);
+
+        /**
+         * Whether every write is forced to the disk before it returns. Without it a write survives a crash of the
+         * application but not of the operating system.
+         */
+        private boolean syncOnWrite = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Journal {
+
+        /**
+         * Directory of the snapshots and write-ahead logs, created if missing.
+         */
+        private String directory = "./data/journal";
+
+        /**
+         * Milliseconds between two snapshots, a snapshot bounds the log replayed on startup.
+         */
+        private long snapshotIntervalMs = 300_000;
+
+        /**
+         * Whether every logged write is forced to the disk before it returns. Without it a write survives a crash of
+         * the application but not of the operating system.
+         */
+        private boolean syncOnWrite = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Sharded {
+
+        /**
+         * JDBC urls of the shard databases, one per shard. A question and its replies are stored in the shard chosen
+         * by the hash of the question id, so shards must not be added or removed once questions are stored.
+         * The first shard also allocates the ids. Defaults to two in-memory H2 databases.
+         */
+        private List<String> urls = new ArrayList<>(Arrays.asList(
+                "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1", "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"));
+
+        private String username = "sa";
+
+        private String password = "password";
+
+        /**
+         * Maximum number of connections of each shard.
+         */
+        private int poolSize = 10;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.persistence.journal;
+
+import lombok.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One write logged to the {@link WriteAheadLog}, encoded as
+ * {@code type:byte id:long ref:long authorLength:int author:utf8 messageLength:int message:utf8}.
+ * Entries of questions and replies are also the in-memory form of the messages, they are immutable.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Value
+class JournalEntry {
+
+    /**
+     * A question, ref is unused.
+     */
+    static final byte QUESTION = 1;
+    /**
+     * A reply, ref is the id of its question.
+     */
+    static final byte REPLY = 2;
+    /**
+     * A change of the reply count of the question with the id, ref is the number of replies added.
+     */
+    static final byte REPLY_COUNT = 3;
+    /**
+     * A reply which also adds one to the reply count of its question, ref is the id of its question. The reply and
+     * its count are one entry, so a torn log cannot keep one without the other.
+     */
+    static final byte COUNTED_REPLY = 4;
+
+    byte type;
+    long id;
+    long ref;
+    String author;
+    String message;
+
+    byte[] encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeLong(id);
+            out.writeLong(ref);
+            writeString(out, author);
+            writeString(out, message);
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static JournalEntry decode(DataInput in) throws IOException {
+        return new JournalEntry(in.readByte(), in.readLong(), in.readLong(), readString(in), readString(in));
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes, a length of -1 stands for null.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
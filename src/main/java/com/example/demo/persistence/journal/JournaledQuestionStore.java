@@ -0,0 +1,487 @@
+package com.example.demo.persistence.journal;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link QuestionStore} holding all questions and replies in memory, selected with
+ * {@code questions.storage.type=journal}. Every write is appended to a {@link WriteAheadLog} before it is applied,
+ * and a {@link SnapshotFile} of the whole state is written periodically and on shutdown. On startup the latest
+ * snapshot is loaded and only the logs written after it are replayed, so restart time is bounded by the snapshot
+ * size and the snapshot interval rather than by the history of writes.
+ * <p>
+ * Taking a snapshot starts a new log and captures the questions under the write lock, the file is then written
+ * while writes go on. Logs and snapshots older than the latest snapshot are deleted once it is complete.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "journal")
+public class JournaledQuestionStore implements QuestionStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledQuestionStore.class);
+    private static final Pattern WAL_FILE = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final Path directory;
+    private final boolean syncOnWrite;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentSkipListMap<Long, QuestionState> questions = new ConcurrentSkipListMap<>();
+    private final Map<Long, JournalEntry> replies = new ConcurrentHashMap<>();
+    private long nextId = 1;
+    private WriteAheadLog wal;
+
+    public JournaledQuestionStore(StorageProperties properties) throws IOException {
+        StorageProperties.Journal journal = properties.getJournal();
+        this.directory = Paths.get(journal.getDirectory());
+        this.syncOnWrite = journal.isSyncOnWrite();
+        open();
+    }
+
+    private void open() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        long walSequence = 1;
+        List<Path> snapshots = files(SNAPSHOT_FILE);
+        if (!snapshots.isEmpty()) {
+            SnapshotFile.Header header = SnapshotFile.read(snapshots.get(snapshots.size() - 1), new SnapshotFile.Loader() {
+                @Override
+                public void question(JournalEntry question, long replyCount, long version) {
+                    apply(question);
+                    questions.get(question.getId()).replyCount = replyCount;
+                    questions.get(question.getId()).version = version;
+                }
+
+                @Override
+                public void reply(JournalEntry reply) {
+                    apply(reply);
+                }
+            });
+            walSequence = header.getWalSequence();
+            nextId = Math.max(nextId, header.getNextId());
+        }
+        long lastSequence = walSequence - 1;
+        long entries = 0;
+        for (Path file : files(WAL_FILE)) {
+            long sequence = number(WAL_FILE, file);
+            if (sequence >= walSequence) {
+                entries += WriteAheadLog.replay(file, this::apply);
+            }
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+        // a torn entry may end the last log, appending after it would hide the entries behind it
+        wal = WriteAheadLog.create(directory.resolve(walName(lastSequence + 1)), lastSequence + 1, syncOnWrite);
+        log.info("Loaded {} questions from snapshot {} and {} log entries in {} ms", questions.size(),
+                snapshots.isEmpty() ? "none" : snapshots.get(snapshots.size() - 1).getFileName(), entries,
+                System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public QuestionsEntity save(QuestionsEntity entity) {
+        return saveAll(Collections.singletonList(entity)).get(0);
+    }
+
+    @Override
+    public List<QuestionsEntity> saveAll(List<QuestionsEntity> entities) {
+        lock.writeLock().lock();
+        try {
+            for (QuestionsEntity entity : entities) {
+                if (entity.getParentQuestionId() != null && !questions.containsKey(entity.getParentQuestionId())) {
+                    throw new IllegalArgumentException("Question " + entity.getParentQuestionId() + " does not exist.");
+                }
+            }
+            List<QuestionsEntity> saved = new ArrayList<>(entities.size());
+            for (QuestionsEntity entity : entities) {
+                long id = nextId;
+                Long parentId = entity.getParentQuestionId();
+                journal(new JournalEntry(parentId == null ? JournalEntry.QUESTION : JournalEntry.REPLY, id,
+                        parentId == null ? 0 : parentId, entity.getAuthor(), entity.getMessage()));
+                saved.add(QuestionsEntity.builder()
+                        .id(id)
+                        .author(entity.getAuthor())
+                        .message(entity.getMessage())
+                        .parentQuestionId(parentId)
+                        .build());
+            }
+            return saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Logs every reply as one entry which also counts it, see {@link JournalEntry#COUNTED_REPLY}. Replies are
+     * appended under the write lock, so the position of a reply among the replies of its question is its reply number.
+     */
+    @Override
+    public Optional<List<QuestionsEntity>> addReplies(Long questionId, List<QuestionsEntity> replies) {
+        lock.writeLock().lock();
+        try {
+            QuestionState question = questions.get(questionId);
+            if (question == null) {
+                return Optional.empty();
+            }
+            List<QuestionsEntity> saved = new ArrayList<>(replies.size());
+            for (QuestionsEntity reply : replies) {
+                long id = nextId;
+                journal(new JournalEntry(JournalEntry.COUNTED_REPLY, id, questionId, reply.getAuthor(), reply.getMessage()));
+                saved.add(QuestionsEntity.builder()
+                        .id(id)
+                        .author(reply.getAuthor())
+                        .message(reply.getMessage())
+                        .parentQuestionId(questionId)
+                        .replyNumber((long) question.replies)
+                        .build());
+            }
+            return Optional.of(saved);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<QuestionsEntity> findById(Long id) {
+        return read(() -> {
+            QuestionState question = questions.get(id);
+            if (question != null) {
+                return Optional.of(QuestionsEntity.builder()
+                        .id(id)
+                        .author(question.entry.getAuthor())
+                        .message(question.entry.getMessage())
+                        .replyCount(question.replyCount)
+                        .version(question.version)
+                        .build());
+            }
+            return Optional.ofNullable(replies.get(id))
+                    .map(reply -> QuestionsEntity.builder()
+                            .id(id)
+                            .author(reply.getAuthor())
+                            .message(reply.getMessage())
+                            .parentQuestionId(reply.getRef())
+                            .build());
+        });
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return read(() -> Optional.ofNullable(questions.get(id)).map(question -> question.version));
+    }
+
+    @Override
+    public List<QuestionDetails> findAllQuestionDetails() {
+        return read(() -> questions.values().stream()
+                .map(QuestionState::details)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Stream<QuestionDetails> streamAllQuestionDetails() {
+        return questions.values().stream()
+                .map(question -> read(question::details));
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsByIds(Collection<Long> ids) {
+        return read(() -> ids.stream()
+                .distinct()
+                .map(questions::get)
+                .filter(Objects::nonNull)
+                .map(QuestionState::details)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsPage(long after, int limit) {
+        return read(() -> questions.tailMap(after, false).values().stream()
+                .limit(limit)
+                .map(QuestionState::details)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit) {
+        return read(() -> {
+            QuestionState question = questions.get(questionId);
+            if (question == null) {
+                return Collections.<ReplyDetails>emptyList();
+            }
+            int from = question.firstReplyAfter(after);
+            int to = (int) Math.min(question.replies, (long) from + limit);
+            List<ReplyDetails> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                JournalEntry reply = replies.get(question.replyIds[i]);
+                page.add(new ReplyDetails(reply.getId(), reply.getAuthor(), reply.getMessage()));
+            }
+            return page;
+        });
+    }
+
+    @Override
+    public List<QuestionsEntity> findRepliesAfterNumber(Long questionId, long after, int limit) {
+        return read(() -> {
+            QuestionState question = questions.get(questionId);
+            if (question == null) {
+                return Collections.<QuestionsEntity>emptyList();
+            }
+            int from = (int) Math.max(0, Math.min(after, question.replies));
+            int to = (int) Math.min(question.replies, (long) from + limit);
+            List<QuestionsEntity> page = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                JournalEntry reply = replies.get(question.replyIds[i]);
+                page.add(QuestionsEntity.builder()
+                        .id(reply.getId())
+                        .author(reply.getAuthor())
+                        .message(reply.getMessage())
+                        .parentQuestionId(questionId)
+                        .replyNumber(i + 1L)
+                        .build());
+            }
+            return page;
+        });
+    }
+
+    @Override
+    public Stream<IndexedMessage> streamIndexedMessages() {
+        return questions.values().stream()
+                .flatMap(question -> {
+                    long[] replyIds = read(() -> Arrays.copyOf(question.replyIds, question.replies));
+                    return Stream.concat(Stream.of(question.entry), Arrays.stream(replyIds).mapToObj(replies::get))
+                            .map(entry -> new Message(entry.getId(), question.entry.getId(), entry.getAuthor(), entry.getMessage()));
+                });
+    }
+
+    @Override
+    public int reconcileReplyCounts() {
+        lock.writeLock().lock();
+        try {
+            int repaired = 0;
+            for (QuestionState question : questions.values()) {
+                long delta = question.replies - question.replyCount;
+                if (delta != 0) {
+                    journal(new JournalEntry(JournalEntry.REPLY_COUNT, question.entry.getId(), delta, null, null));
+                    repaired++;
+                }
+            }
+            return repaired;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of all questions and replies, then deletes the logs and snapshots it makes obsolete.
+     *
+     * @return number of questions in the snapshot.
+     */
+    @Scheduled(initialDelayString = "${questions.storage.journal.snapshot-interval-ms:300000}",
+            fixedDelayString = "${questions.storage.journal.snapshot-interval-ms:300000}")
+    public synchronized int snapshot() {
+        long start = System.currentTimeMillis();
+        try {
+            long walSequence;
+            long snapshotNextId;
+            List<SnapshotFile.QuestionImage> images;
+            lock.writeLock().lock();
+            try {
+                walSequence = wal.getSequence() + 1;
+                WriteAheadLog previous = wal;
+                wal = WriteAheadLog.create(directory.resolve(walName(walSequence)), walSequence, syncOnWrite);
+                previous.close();
+                snapshotNextId = nextId;
+                images = questions.values().stream()
+                        .map(QuestionState::image)
+                        .collect(Collectors.toList());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            SnapshotFile.write(directory.resolve(String.format("snapshot-%08d.bin", walSequence)), walSequence,
+                    snapshotNextId, images, replies::get);
+            for (Path file : files(WAL_FILE)) {
+                if (number(WAL_FILE, file) < walSequence) {
+                    Files.delete(file);
+                }
+            }
+            for (Path file : files(SNAPSHOT_FILE)) {
+                if (number(SNAPSHOT_FILE, file) < walSequence) {
+                    Files.delete(file);
+                }
+            }
+            log.info("Wrote snapshot of {} questions in {} ms", images.size(), System.currentTimeMillis() - start);
+            return images.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write snapshot in " + directory, ex);
+        }
+    }
+
+    /**
+     * Takes a last snapshot so that the next start does not replay any log.
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            snapshot();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                wal.close();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Logs a write and applies it, a write which cannot be logged is not applied.
+     */
+    private void journal(JournalEntry entry) {
+        try {
+            wal.append(entry);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not log write of id " + entry.getId(), ex);
+        }
+        apply(entry);
+    }
+
+    /**
+     * Applies an entry to the in-memory state, both when it is written and when it is replayed.
+     */
+    private void apply(JournalEntry entry) {
+        switch (entry.getType()) {
+            case JournalEntry.QUESTION:
+                questions.put(entry.getId(), new QuestionState(entry));
+                nextId = Math.max(nextId, entry.getId() + 1);
+                break;
+            case JournalEntry.REPLY:
+            case JournalEntry.COUNTED_REPLY:
+                QuestionState question = questions.get(entry.getRef());
+                if (question != null) {
+                    question.addReply(entry.getId());
+                    replies.put(entry.getId(), entry);
+                    if (entry.getType() == JournalEntry.COUNTED_REPLY) {
+                        question.replyCount++;
+                        question.version++;
+                    }
+                }
+                nextId = Math.max(nextId, entry.getId() + 1);
+                break;
+            case JournalEntry.REPLY_COUNT:
+                QuestionState counted = questions.get(entry.getId());
+                if (counted != null) {
+                    counted.replyCount += entry.getRef();
+                    counted.version++;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown entry type " + entry.getType() + " of id " + entry.getId());
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Path> files(Pattern pattern) throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.filter(file -> pattern.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long number(Pattern pattern, Path file) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String walName(long sequence) {
+        return String.format("wal-%08d.log", sequence);
+    }
+
+    /**
+     * In-memory state of a question, changed only under the write lock.
+     */
+    private static final class QuestionState {
+        private final JournalEntry entry;
+        private long replyCount;
+        private long version;
+        private long[] replyIds = new long[0];
+        private int replies;
+
+        QuestionState(JournalEntry entry) {
+            this.entry = entry;
+        }
+
+        void addReply(long id) {
+            if (replies == replyIds.length) {
+                replyIds = Arrays.copyOf(replyIds, Math.max(4, replies * 2));
+            }
+            replyIds[replies++] = id;
+        }
+
+        /**
+         * Reply ids are appended in increasing order, so they are searched instead of scanned.
+         */
+        int firstReplyAfter(long after) {
+            int index = Arrays.binarySearch(replyIds, 0, replies, after);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        QuestionDetails details() {
+            return new QuestionDetails(entry.getId(), entry.getAuthor(), entry.getMessage(), replyCount);
+        }
+
+        SnapshotFile.QuestionImage image() {
+            return new SnapshotFile.QuestionImage(entry, replyCount, version, replyIds, replies);
+        }
+    }
+
+    @Value
+    private static class Message implements IndexedMessage {
+        Long id;
+        Long questionId;
+        String author;
+        String message;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.persistence.journal;
+
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of all questions and replies of {@link JournaledQuestionStore}. The file holds a header with the
+ * number of the first write-ahead log to replay after it and the next id, then every question followed by its
+ * replies, and ends with the CRC32 of everything before. A snapshot is written to a temporary file which is moved
+ * in place once complete, so a crash never leaves a partial snapshot behind.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x51534e50;  // "QSNP"
+    private static final int FORMAT = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot.
+     *
+     * @param questions questions captured at the time of the snapshot.
+     * @param replies   reads a reply by id, replies are immutable so they are read while writing.
+     */
+    static void write(Path file, long walSequence, long nextId, List<QuestionImage> questions,
+                      LongFunction<JournalEntry> replies) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(walSequence);
+            out.writeLong(nextId);
+            out.writeInt(questions.size());
+            for (QuestionImage question : questions) {
+                out.writeLong(question.getQuestion().getId());
+                JournalEntry.writeString(out, question.getQuestion().getAuthor());
+                JournalEntry.writeString(out, question.getQuestion().getMessage());
+                out.writeLong(question.getReplyCount());
+                out.writeLong(question.getVersion());
+                out.writeInt(question.getReplies());
+                for (int i = 0; i < question.getReplies(); i++) {
+                    JournalEntry reply = replies.apply(question.getReplyIds()[i]);
+                    out.writeLong(reply.getId());
+                    JournalEntry.writeString(out, reply.getAuthor());
+                    JournalEntry.writeString(out, reply.getMessage());
+                }
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot into a loader, questions before their replies.
+     *
+     * @return header of the snapshot.
+     * @throws IOException if the file cannot be read or is not a complete snapshot.
+     */
+    static Header read(Path file, Loader loader) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(in, BUFFER_SIZE), new CRC32());
+            DataInputStream data = new DataInputStream(checked);
+            if (data.readInt() != MAGIC || data.readInt() != FORMAT) {
+                throw new IOException("Unknown snapshot format of " + file);
+            }
+            Header header = new Header(data.readLong(), data.readLong());
+            int questions = data.readInt();
+            for (int i = 0; i < questions; i++) {
+                JournalEntry question = new JournalEntry(JournalEntry.QUESTION, data.readLong(), 0,
+                        JournalEntry.readString(data), JournalEntry.readString(data));
+                loader.question(question, data.readLong(), data.readLong());
+                int replies = data.readInt();
+                for (int j = 0; j < replies; j++) {
+                    loader.reply(new JournalEntry(JournalEntry.REPLY, data.readLong(), question.getId(),
+                            JournalEntry.readString(data), JournalEntry.readString(data)));
+                }
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (data.readInt() != expected) {
+                throw new IOException("Checksum mismatch in snapshot " + file);
+            }
+            return header;
+        }
+    }
+
+    /**
+     * A question with the state it had when the snapshot was taken. Reply ids are only appended to, so the first
+     * {@code replies} ids of the shared array do not change after the capture.
+     */
+    @Value
+    static class QuestionImage {
+        JournalEntry question;
+        long replyCount;
+        long version;
+        long[] replyIds;
+        int replies;
+    }
+
+    @Value
+    static class Header {
+        long walSequence;
+        long nextId;
+    }
+
+    interface Loader {
+        void question(JournalEntry question, long replyCount, long version);
+
+        void reply(JournalEntry reply);
+    }
+}
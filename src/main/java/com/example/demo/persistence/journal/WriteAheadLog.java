@@ -0,0 +1,107 @@
+package com.example.demo.persistence.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log file of {@link JournaledQuestionStore}. Every entry is preceded by its length and the CRC32 of its
+ * bytes, so an entry torn by a crash is detected on replay. Logs are numbered: a snapshot records the number of the
+ * first log written after it, only that log and the following ones are replayed. Not thread safe.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+class WriteAheadLog implements Closeable {
+
+    private static final int MAX_ENTRY_SIZE = 64 * 1024 * 1024;
+
+    private final long sequence;
+    private final FileChannel channel;
+    private final boolean syncOnWrite;
+
+    private WriteAheadLog(long sequence, FileChannel channel, boolean syncOnWrite) {
+        this.sequence = sequence;
+        this.channel = channel;
+        this.syncOnWrite = syncOnWrite;
+    }
+
+    /**
+     * Creates a new empty log file.
+     */
+    static WriteAheadLog create(Path file, long sequence, boolean syncOnWrite) throws IOException {
+        return new WriteAheadLog(sequence,
+                FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), syncOnWrite);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Writes an entry to the end of the log. The entry reaches the operating system before this returns, and the
+     * disk as well when the log syncs on write.
+     */
+    void append(JournalEntry entry) throws IOException {
+        byte[] payload = entry.encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (syncOnWrite) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the entries of a log file in write order. Reading stops at the end of the file or at the first entry
+     * which is incomplete or fails its checksum, such an entry was never acknowledged to a writer.
+     *
+     * @return number of entries read.
+     */
+    static long replay(Path file, Consumer<JournalEntry> consumer) throws IOException {
+        long count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_ENTRY_SIZE) {
+                        return count;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException ex) {
+                    return count;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return count;
+                }
+                consumer.accept(JournalEntry.decode(new DataInputStream(new ByteArrayInputStream(payload))));
+                count++;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+}
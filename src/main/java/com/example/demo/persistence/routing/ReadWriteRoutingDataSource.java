@@ -0,0 +1,50 @@
+package com.example.demo.persistence.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to the replicas in turn and everything else to the primary. Connections outside
+ * of a transaction and reads pinned with {@link ReplicaRouting#pinPrimary()} use the primary as well.
+ * <p>
+ * The decision is taken when a connection is obtained, so this datasource has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction managers obtain the
+ * connection before they mark the transaction read-only, the proxy defers it to the first statement.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica-";
+
+    private final int replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+        this.replicas = replicas.size();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas == 0 || ReplicaRouting.isPrimaryPinned()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return REPLICA + Math.floorMod(next.getAndIncrement(), replicas);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.persistence.routing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * Keeps the reads of a client on the primary for a while after it wrote. A write hands out a cookie with the time
+ * until which the client is pinned, reads carrying an unexpired cookie are pinned with
+ * {@link ReplicaRouting#pinPrimary()}. The cookie is set before the write runs, while the response is not committed.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String COOKIE = "questions-primary-until";
+
+    private final Duration window;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.currentTimeMillis();
+        if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            if (pinnedUntil(request) > now) {
+                ReplicaRouting.pinPrimary();
+            }
+        } else {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (window.toMillis() + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRouting.unpin();
+    }
+
+    /**
+     * The request thread is released before the response is complete, the pin must not outlive it.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRouting.unpin();
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException ex) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
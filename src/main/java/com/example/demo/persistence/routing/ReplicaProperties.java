@@ -0,0 +1,46 @@
+package com.example.demo.persistence.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the read replicas of the database, bound from {@code questions.replicas.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "questions.replicas")
+public class ReplicaProperties {
+
+    /**
+     * Whether read-only transactions are routed to the replicas, everything else always uses the primary
+     * datasource configured under {@code spring.datasource}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * JDBC urls of the replicas, read-only transactions are spread over them in turn.
+     */
+    private List<String> urls = new ArrayList<>();
+
+    private String username = "sa";
+
+    private String password = "password";
+
+    /**
+     * Maximum number of connections to each replica.
+     */
+    private int poolSize = 10;
+
+    /**
+     * How long the reads of a client stay on the primary after it posted, so it sees its own writes whatever the
+     * replication lag. 0 disables it.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+}
@@ -0,0 +1,51 @@
+package com.example.demo.persistence.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Routing decision of the current thread which is not expressed by its transaction: whether reads are pinned to
+ * the primary datasource.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Sends the read-only transactions of the current thread to the primary until {@link #unpin()}.
+     */
+    public static void pinPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PRIMARY_PINNED.remove();
+    }
+
+    public static boolean isPrimaryPinned() {
+        return PRIMARY_PINNED.get() != null;
+    }
+
+    /**
+     * Runs a read pinned to the primary, the pin of the current thread is left as it was. The read has to obtain
+     * its connection inside, transactions started before keep the datasource they already use.
+     *
+     * @param read reads from the database.
+     * @return result of the read.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (isPrimaryPinned()) {
+            return read.get();
+        }
+        pinPrimary();
+        try {
+            return read.get();
+        } finally {
+            unpin();
+        }
+    }
+}
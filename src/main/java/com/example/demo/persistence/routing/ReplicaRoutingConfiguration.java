@@ -0,0 +1,72 @@
+package com.example.demo.persistence.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the datasource with a {@link ReadWriteRoutingDataSource} over the primary of {@code spring.datasource}
+ * and the replicas of {@code questions.replicas}, when the replicas are enabled. The read-only methods of the
+ * services then read from the replicas. Also registers {@link ReadYourWritesInterceptor} unless its window is 0.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "questions.replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration implements WebMvcConfigurer {
+
+    private final ReplicaProperties properties;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ReplicaRoutingConfiguration(ReplicaProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        pools.add(primary);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : properties.getUrls()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url);
+            replica.setUsername(properties.getUsername());
+            replica.setPassword(properties.getPassword());
+            replica.setMaximumPoolSize(properties.getPoolSize());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+            pools.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas));
+    }
+
+    /**
+     * The pools are not beans, further datasource beans would make the injection of the datasource ambiguous,
+     * so they are closed here.
+     */
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!properties.getReadYourWritesWindow().isZero()) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(properties.getReadYourWritesWindow()));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.persistence.segment;
+
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One entry of a segment file. The payload of a record is laid out as
+ * {@code type:byte id:long ref:long authorLength:int author:utf8 messageLength:int message:utf8},
+ * a length of -1 stands for a null string.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Value
+class Record {
+
+    /**
+     * A question, ref is unused.
+     */
+    static final byte QUESTION = 1;
+    /**
+     * A reply, ref is the id of its question.
+     */
+    static final byte REPLY = 2;
+    /**
+     * A change of the reply count of the question with the id, ref is the number of replies added.
+     */
+    static final byte REPLY_COUNT = 3;
+    /**
+     * A reply which also adds one to the reply count of its question, ref is the id of its question. The reply and
+     * its count are one record, so a torn segment cannot keep one without the other.
+     */
+    static final byte COUNTED_REPLY = 4;
+
+    byte type;
+    long id;
+    long ref;
+    String author;
+    String message;
+
+    static int length(byte[] author, byte[] message) {
+        return 1 + 8 + 8 + 4 + (author == null ? 0 : author.length) + 4 + (message == null ? 0 : message.length);
+    }
+
+    static void write(ByteBuffer view, byte type, long id, long ref, byte[] author, byte[] message) {
+        view.put(type).putLong(id).putLong(ref);
+        putString(view, author);
+        putString(view, message);
+    }
+
+    static Record read(ByteBuffer view) {
+        return new Record(view.get(), view.getLong(), view.getLong(), getString(view), getString(view));
+    }
+
+    static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer view, byte[] value) {
+        if (value == null) {
+            view.putInt(-1);
+        } else {
+            view.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer view) {
+        int length = view.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        view.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
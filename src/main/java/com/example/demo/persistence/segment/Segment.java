@@ -0,0 +1,142 @@
+package com.example.demo.persistence.segment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segment file mapped in memory. Every record is preceded by its payload length and the CRC32 of its
+ * payload. The length is written last, so a record torn by a crash reads as the end of the segment.
+ * Not thread safe, callers synchronize appends with reads.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+class Segment implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+
+    private final int number;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int position;
+
+    private Segment(int number, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a segment file, creating it with the given size if missing. Existing files keep their own size.
+     */
+    static Segment open(Path file, int number, int size) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int mapped = (int) Math.max(channel.size(), size);
+            return new Segment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped));
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * Reads all complete records from the start of the segment and positions the segment after the last one.
+     * Reading stops at the first record which is missing or fails its checksum.
+     *
+     * @param visitor called with every record and its offset, in write order.
+     * @return number of records read.
+     */
+    int recover(RecordVisitor visitor) {
+        ByteBuffer view = buffer.duplicate();
+        int offset = 0;
+        int count = 0;
+        while (offset + HEADER_SIZE <= view.capacity()) {
+            int length = view.getInt(offset);
+            if (length <= 0 || length > view.capacity() - offset - HEADER_SIZE
+                    || view.getInt(offset + 4) != checksum(offset + HEADER_SIZE, length)) {
+                break;
+            }
+            view.position(offset + HEADER_SIZE);
+            visitor.visit(Record.read(view), offset);
+            offset += HEADER_SIZE + length;
+            count++;
+        }
+        position = offset;
+        return count;
+    }
+
+    /**
+     * Zeroes whatever follows the last record, so that the leftovers of a torn record can never be read
+     * as part of the records appended after recovery.
+     */
+    void clearTail() {
+        for (int i = position; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Appends a record after the last one.
+     *
+     * @return offset of the record, -1 if the record does not fit in the remaining space.
+     */
+    int append(byte type, long id, long ref, byte[] author, byte[] message) {
+        int length = Record.length(author, message);
+        if ((long) position + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        int offset = position;
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER_SIZE);
+        Record.write(view, type, id, ref, author, message);
+        buffer.putInt(offset + 4, checksum(offset + HEADER_SIZE, length));
+        buffer.putInt(offset, length);
+        position = offset + HEADER_SIZE + length;
+        return offset;
+    }
+
+    Record read(int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + HEADER_SIZE);
+        return Record.read(view);
+    }
+
+    /**
+     * Writes the appended records through to the disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int checksum(int from, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.limit(from + length);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    interface RecordVisitor {
+        void visit(Record record, int offset);
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.demo.persistence.segment;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link QuestionStore} writing questions, replies and reply count changes as records appended to memory-mapped
+ * segment files, selected with {@code questions.storage.type=segment}. Writes are sequential and never rewrite
+ * a record. The location of every record and the reply count, version and reply ids of every question are kept
+ * in memory, so point reads and keyset pages decode the records straight from the mapped files.
+ * The index is rebuilt by reading all segments when the store is opened.
+ * <p>
+ * Writes are serialized, reads run concurrently with each other. A batch of records is not atomic: records
+ * written before an I/O failure stay, which is why parents of replies are checked before anything is written.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "segment")
+public class SegmentFileQuestionStore implements QuestionStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentFileQuestionStore.class);
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.log");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Long, Long> locations = new HashMap<>();
+    private final ConcurrentSkipListMap<Long, QuestionSlot> questions = new ConcurrentSkipListMap<>();
+    private long nextId = 1;
+
+    public SegmentFileQuestionStore(StorageProperties properties) throws IOException {
+        StorageProperties.Segment segment = properties.getSegment();
+        this.directory = Paths.get(segment.getDirectory());
+        this.segmentSize = (int) Math.min(segment.getSize().toBytes(), Integer.MAX_VALUE);
+        this.syncOnWrite = segment.isSyncOnWrite();
+        open();
+    }
+
+    private void open() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> SEGMENT_FILE.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        long records = 0;
+        for (Path file : files) {
+            Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+            matcher.matches();
+            Segment segment = Segment.open(file, Integer.parseInt(matcher.group(1)), segmentSize);
+            int index = segments.size();
+            segments.add(segment);
+            records += segment.recover((record, offset) -> apply(record, location(index, offset)));
+        }
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active().clearTail();
+        }
+        log.info("Opened {} segments with {} records and {} questions in {} ms",
+                segments.size(), records, questions.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public QuestionsEntity save(QuestionsEntity entity) {
+        return saveAll(Collections.singletonList(entity)).get(0);
+    }
+
+    @Override
+    public List<QuestionsEntity> saveAll(List<QuestionsEntity> entities) {
+        lock.writeLock().lock();
+        try {
+            for (QuestionsEntity entity : entities) {
+                if (entity.getParentQuestionId() != null && !questions.containsKey(entity.getParentQuestionId())) {
+                    throw new IllegalArgumentException("Question " + entity.getParentQuestionId() + " does not exist.");
+                }
+            }
+            List<QuestionsEntity> saved = new ArrayList<>(entities.size());
+            for (QuestionsEntity entity : entities) {
+                long id = nextId;
+                Long parentId = entity.getParentQuestionId();
+                Record record = new Record(parentId == null ? Record.QUESTION : Record.REPLY, id,
+                        parentId == null ? 0 : parentId, entity.getAuthor(), entity.getMessage());
+                apply(record, append(record));
+                saved.add(QuestionsEntity.builder()
+                        .id(id)
+                        .author(entity.getAuthor())
+                        .message(entity.getMessage())
+                        .parentQuestionId(parentId)
+                        .build());
+            }
+            sync();
+            return saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends every reply as one record which also counts it, see {@link Record#COUNTED_REPLY}. Records are appended
+     * under the write lock, so the position of a reply among the replies of its question is its reply number.
+     */
+    @Override
+    public Optional<List<QuestionsEntity>> addReplies(Long questionId, List<QuestionsEntity> replies) {
+        lock.writeLock().lock();
+        try {
+            QuestionSlot question = questions.get(questionId);
+            if (question == null) {
+                return Optional.empty();
+            }
+            List<QuestionsEntity> saved = new ArrayList<>(replies.size());
+            for (QuestionsEntity reply : replies) {
+                long id = nextId;
+                Record record = new Record(Record.COUNTED_REPLY, id, questionId, reply.getAuthor(), reply.getMessage());
+                apply(record, append(record));
+                saved.add(QuestionsEntity.builder()
+                        .id(id)
+                        .author(reply.getAuthor())
+                        .message(reply.getMessage())
+                        .parentQuestionId(questionId)
+                        .replyNumber((long) question.replies)
+                        .build());
+            }
+            sync();
+            return Optional.of(saved);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<QuestionsEntity> findById(Long id) {
+        return read(() -> {
+            Long location = locations.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Record record = read(location);
+            QuestionsEntity.QuestionsEntityBuilder entity = QuestionsEntity.builder()
+                    .id(record.getId())
+                    .author(record.getAuthor())
+                    .message(record.getMessage());
+            if (record.getType() != Record.QUESTION) {
+                entity.parentQuestionId(record.getRef());
+            } else {
+                QuestionSlot question = questions.get(id);
+                entity.replyCount(question.replyCount).version(question.version);
+            }
+            return Optional.of(entity.build());
+        });
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return read(() -> Optional.ofNullable(questions.get(id)).map(question -> question.version));
+    }
+
+    @Override
+    public List<QuestionDetails> findAllQuestionDetails() {
+        return read(() -> questions.entrySet().stream()
+                .map(question -> details(question.getKey(), question.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Streams the questions in id order, each question is read at the time the stream reaches it.
+     */
+    @Override
+    public Stream<QuestionDetails> streamAllQuestionDetails() {
+        return questions.entrySet().stream()
+                .map(question -> read(() -> details(question.getKey(), question.getValue())));
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsByIds(Collection<Long> ids) {
+        return read(() -> ids.stream()
+                .distinct()
+                .filter(questions::containsKey)
+                .map(id -> details(id, questions.get(id)))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsPage(long after, int limit) {
+        return read(() -> questions.tailMap(after, false).entrySet().stream()
+                .limit(limit)
+                .map(question -> details(question.getKey(), question.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit) {
+        return read(() -> {
+            QuestionSlot question = questions.get(questionId);
+            if (question == null) {
+                return Collections.<ReplyDetails>emptyList();
+            }
+            int from = question.firstReplyAfter(after);
+            int to = (int) Math.min(question.replies, (long) from + limit);
+            List<ReplyDetails> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                Record reply = read(locations.get(question.replyIds[i]));
+                page.add(new ReplyDetails(reply.getId(), reply.getAuthor(), reply.getMessage()));
+            }
+            return page;
+        });
+    }
+
+    @Override
+    public List<QuestionsEntity> findRepliesAfterNumber(Long questionId, long after, int limit) {
+        return read(() -> {
+            QuestionSlot question = questions.get(questionId);
+            if (question == null) {
+                return Collections.<QuestionsEntity>emptyList();
+            }
+            int from = (int) Math.max(0, Math.min(after, question.replies));
+            int to = (int) Math.min(question.replies, (long) from + limit);
+            List<QuestionsEntity> page = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Record reply = read(locations.get(question.replyIds[i]));
+                page.add(QuestionsEntity.builder()
+                        .id(reply.getId())
+                        .author(reply.getAuthor())
+                        .message(reply.getMessage())
+                        .parentQuestionId(questionId)
+                        .replyNumber(i + 1L)
+                        .build());
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Streams every question followed by its replies, each message is read at the time the stream reaches it.
+     */
+    @Override
+    public Stream<IndexedMessage> streamIndexedMessages() {
+        return questions.entrySet().stream()
+                .flatMap(question -> {
+                    long[] replyIds = read(() -> Arrays.copyOf(question.getValue().replyIds, question.getValue().replies));
+                    return Stream.concat(Stream.of(question.getKey()), Arrays.stream(replyIds).boxed())
+                            .map(id -> read(() -> {
+                                Record record = read(locations.get(id));
+                                return new Message(id, question.getKey(), record.getAuthor(), record.getMessage());
+                            }));
+                });
+    }
+
+    @Override
+    public int reconcileReplyCounts() {
+        lock.writeLock().lock();
+        try {
+            int repaired = 0;
+            for (Map.Entry<Long, QuestionSlot> question : questions.entrySet()) {
+                long delta = question.getValue().replies - question.getValue().replyCount;
+                if (delta != 0) {
+                    Record record = new Record(Record.REPLY_COUNT, question.getKey(), delta, null, null);
+                    apply(record, append(record));
+                    repaired++;
+                }
+            }
+            sync();
+            return repaired;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a record to the in-memory index, both when it is written and when it is recovered.
+     */
+    private void apply(Record record, long location) {
+        switch (record.getType()) {
+            case Record.QUESTION:
+                questions.put(record.getId(), new QuestionSlot());
+                locations.put(record.getId(), location);
+                nextId = Math.max(nextId, record.getId() + 1);
+                break;
+            case Record.REPLY:
+            case Record.COUNTED_REPLY:
+                QuestionSlot question = questions.get(record.getRef());
+                if (question != null) {
+                    question.addReply(record.getId());
+                    locations.put(record.getId(), location);
+                    if (record.getType() == Record.COUNTED_REPLY) {
+                        question.replyCount++;
+                        question.version++;
+                    }
+                }
+                nextId = Math.max(nextId, record.getId() + 1);
+                break;
+            case Record.REPLY_COUNT:
+                QuestionSlot counted = questions.get(record.getId());
+                if (counted != null) {
+                    counted.replyCount += record.getRef();
+                    counted.version++;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + record.getType() + " of id " + record.getId());
+        }
+    }
+
+    private long append(Record record) {
+        byte[] author = Record.bytes(record.getAuthor());
+        byte[] message = Record.bytes(record.getMessage());
+        Segment segment = active();
+        int offset = segment.append(record.getType(), record.getId(), record.getRef(), author, message);
+        if (offset < 0) {
+            if (Segment.HEADER_SIZE + Record.length(author, message) > segmentSize) {
+                throw new IllegalArgumentException("Record of id " + record.getId() + " is larger than a segment.");
+            }
+            segment = roll();
+            offset = segment.append(record.getType(), record.getId(), record.getRef(), author, message);
+        }
+        return location(segments.size() - 1, offset);
+    }
+
+    /**
+     * Starts a new segment, the previous one is forced to the disk as it will not be written anymore.
+     */
+    private Segment roll() {
+        try {
+            int number = 1;
+            if (!segments.isEmpty()) {
+                active().force();
+                number = active().getNumber() + 1;
+            }
+            Segment segment = Segment.open(directory.resolve(String.format("segment-%08d.log", number)), number, segmentSize);
+            segments.add(segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not create segment in " + directory, ex);
+        }
+    }
+
+    private void sync() {
+        if (syncOnWrite) {
+            active().force();
+        }
+    }
+
+    private Segment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Record read(long location) {
+        return segments.get((int) (location >>> 32)).read((int) location);
+    }
+
+    private QuestionDetails details(Long id, QuestionSlot question) {
+        Record record = read(locations.get(id));
+        return new QuestionDetails(id, record.getAuthor(), record.getMessage(), question.replyCount);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    /**
+     * In-memory state of a question, changed only under the write lock.
+     */
+    private static final class QuestionSlot {
+        private long replyCount;
+        private long version;
+        private long[] replyIds = new long[0];
+        private int replies;
+
+        void addReply(long id) {
+            if (replies == replyIds.length) {
+                replyIds = Arrays.copyOf(replyIds, Math.max(4, replies * 2));
+            }
+            replyIds[replies++] = id;
+        }
+
+        /**
+         * Reply ids are appended in increasing order, so they are searched instead of scanned.
+         */
+        int firstReplyAfter(long after) {
+            int index = Arrays.binarySearch(replyIds, 0, replies, after);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    @Value
+    private static class Message implements IndexedMessage {
+        Long id;
+        Long questionId;
+        String author;
+        String message;
+    }
+}
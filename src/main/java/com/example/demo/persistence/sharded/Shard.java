@@ -0,0 +1,75 @@
+package com.example.demo.persistence.sharded;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+
+/**
+ * One database of {@link ShardedQuestionStore} with its connection pool. The table has the columns of
+ * {@code questions_entity} of the default backend, replies are stored in the shard of their question.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+class Shard implements Closeable {
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    Shard(int index, String url, String username, String password, int poolSize) {
+        this.index = index;
+        this.dataSource = new HikariDataSource();
+        dataSource.setPoolName("shard-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Creates the table and its indexes if missing. The reply number column is added to tables created before it
+     * existed and their replies are numbered like {@link com.example.demo.persistence.ReplyNumberInitializer} does.
+     */
+    void createSchema() {
+        jdbc.execute("create table if not exists questions_entity (id bigint primary key, author varchar(255), "
+                + "message varchar(255), parent_question_id bigint, reply_count bigint not null default 0, "
+                + "version bigint not null default 0)");
+        jdbc.execute("alter table questions_entity add column if not exists reply_number bigint");
+        jdbc.execute("create index if not exists questions_entity_parent on questions_entity (parent_question_id, id)");
+        jdbc.execute("create index if not exists questions_entity_reply_number "
+                + "on questions_entity (parent_question_id, reply_number)");
+        jdbc.update("update questions_entity r set reply_number = -(select count(*) from questions_entity o "
+                + "where o.parent_question_id = r.parent_question_id and o.id > r.id) "
+                + "where r.parent_question_id is not null and r.reply_number is null");
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    NamedParameterJdbcTemplate namedJdbc() {
+        return namedJdbc;
+    }
+
+    TransactionTemplate transactionTemplate() {
+        return transactionTemplate;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
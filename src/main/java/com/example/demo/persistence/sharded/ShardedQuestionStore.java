@@ -0,0 +1,394 @@
+package com.example.demo.persistence.sharded;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link QuestionStore} spreading the questions over several databases, selected with
+ * {@code questions.storage.type=sharded}. A question is stored in the shard chosen by the hash of its id and its
+ * replies follow it, so reading a question with its replies, replying and repairing reply counts touch one shard
+ * only. Listings are scattered to all shards in parallel and the sorted results are merged into one page.
+ * <p>
+ * Ids are allocated in blocks from a sequence of the first shard, so they stay unique and grow in insertion order
+ * across shards. Writes to one shard are atomic, a batch spanning several shards is not, and writes do not take part
+ * in the transactions of the services.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@ConditionalOnProperty(prefix = "questions.storage", name = "type", havingValue = "sharded")
+public class ShardedQuestionStore implements QuestionStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedQuestionStore.class);
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final int STREAM_PAGE_SIZE = 500;
+
+    private static final RowMapper<QuestionDetails> QUESTION_DETAILS = (rs, row) ->
+            new QuestionDetails(rs.getLong("id"), rs.getString("author"), rs.getString("message"), rs.getLong("reply_count"));
+    private static final RowMapper<QuestionsEntity> ENTITY = (rs, row) -> QuestionsEntity.builder()
+            .id(rs.getLong("id"))
+            .author(rs.getString("author"))
+            .message(rs.getString("message"))
+            .parentQuestionId((Long) rs.getObject("parent_question_id"))
+            .replyCount(rs.getLong("reply_count"))
+            .version(rs.getLong("version"))
+            .replyNumber((Long) rs.getObject("reply_number"))
+            .build();
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+    private long nextId;
+    private long idLimit;
+
+    public ShardedQuestionStore(StorageProperties properties) {
+        StorageProperties.Sharded sharded = properties.getSharded();
+        if (sharded.getUrls().isEmpty()) {
+            throw new IllegalStateException("questions.storage.sharded.urls must contain at least one database.");
+        }
+        for (String url : sharded.getUrls()) {
+            Shard shard = new Shard(shards.size(), url, sharded.getUsername(), sharded.getPassword(), sharded.getPoolSize());
+            shards.add(shard);
+            shard.createSchema();
+        }
+        shards.get(0).jdbc().execute("create sequence if not exists questions_seq start with 1 increment by "
+                + ID_ALLOCATION_SIZE);
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "shard-scatter-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Opened {} shards", shards.size());
+    }
+
+    /**
+     * Index of the shard of a question, a Fibonacci hash of the id so that consecutive ids spread evenly.
+     */
+    int shardOf(long questionId) {
+        return (int) Long.remainderUnsigned(questionId * 0x9E3779B97F4A7C15L >>> 16, shards.size());
+    }
+
+    @Override
+    public QuestionsEntity save(QuestionsEntity entity) {
+        return saveAll(Collections.singletonList(entity)).get(0);
+    }
+
+    /**
+     * Inserts the entities grouped by shard, one batch and one transaction per shard. The parents of replies are
+     * checked in that transaction before anything is written to the shard.
+     */
+    @Override
+    public List<QuestionsEntity> saveAll(List<QuestionsEntity> entities) {
+        List<QuestionsEntity> saved = new ArrayList<>(entities.size());
+        Map<Shard, List<QuestionsEntity>> byShard = new LinkedHashMap<>();
+        for (QuestionsEntity entity : entities) {
+            long id = allocateId();
+            QuestionsEntity withId = QuestionsEntity.builder()
+                    .id(id)
+                    .author(entity.getAuthor())
+                    .message(entity.getMessage())
+                    .parentQuestionId(entity.getParentQuestionId())
+                    .build();
+            saved.add(withId);
+            Long questionId = entity.getParentQuestionId() == null ? id : entity.getParentQuestionId();
+            byShard.computeIfAbsent(shards.get(shardOf(questionId)), shard -> new ArrayList<>()).add(withId);
+        }
+        byShard.forEach((shard, rows) -> shard.transactionTemplate().execute(status -> {
+            rows.stream()
+                    .map(QuestionsEntity::getParentQuestionId)
+                    .filter(parentId -> parentId != null)
+                    .distinct()
+                    .forEach(parentId -> {
+                        if (shard.jdbc().queryForObject("select count(*) from questions_entity "
+                                + "where id = ? and parent_question_id is null", Integer.class, parentId) == 0) {
+                            throw new IllegalArgumentException("Question " + parentId + " does not exist.");
+                        }
+                    });
+            insert(shard, rows);
+            return null;
+        }));
+        return saved;
+    }
+
+    private static void insert(Shard shard, List<QuestionsEntity> rows) {
+        shard.jdbc().batchUpdate("insert into questions_entity (id, author, message, parent_question_id, "
+                        + "reply_count, version, reply_number) values (?, ?, ?, ?, 0, 0, ?)",
+                rows.stream()
+                        .map(row -> new Object[]{row.getId(), row.getAuthor(), row.getMessage(), row.getParentQuestionId(),
+                                row.getReplyNumber()})
+                        .collect(Collectors.toList()));
+    }
+
+    private synchronized long allocateId() {
+        if (nextId == idLimit) {
+            nextId = shards.get(0).jdbc().queryForObject("select next value for questions_seq", Long.class);
+            idLimit = nextId + ID_ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+
+    /**
+     * Increments the reply count and inserts the replies in one transaction of the shard of the question, like
+     * {@link com.example.demo.persistence.JpaQuestionStore#addReplies}: the update tells whether the question exists,
+     * returns the version which numbers the replies and locks the question row until the replies are inserted.
+     */
+    @Override
+    public Optional<List<QuestionsEntity>> addReplies(Long questionId, List<QuestionsEntity> replies) {
+        Shard shard = shard(questionId);
+        return shard.transactionTemplate().execute(status -> {
+            GeneratedKeyHolder version = new GeneratedKeyHolder();
+            if (shard.jdbc().update(connection -> {
+                PreparedStatement statement = connection.prepareStatement("update questions_entity "
+                        + "set reply_count = reply_count + ?, version = version + ? "
+                        + "where id = ? and parent_question_id is null", new String[]{"version"});
+                statement.setLong(1, replies.size());
+                statement.setLong(2, replies.size());
+                statement.setLong(3, questionId);
+                return statement;
+            }, version) == 0) {
+                return Optional.empty();
+            }
+            long number = version.getKey().longValue() - replies.size();
+            List<QuestionsEntity> saved = new ArrayList<>(replies.size());
+            for (QuestionsEntity reply : replies) {
+                saved.add(QuestionsEntity.builder()
+                        .id(allocateId())
+                        .author(reply.getAuthor())
+                        .message(reply.getMessage())
+                        .parentQuestionId(questionId)
+                        .replyNumber(++number)
+                        .build());
+            }
+            insert(shard, saved);
+            return Optional.of(saved);
+        });
+    }
+
+    /**
+     * Reads a question from its shard. Replies are stored with their question, so an id not found there is looked
+     * up in the other shards.
+     */
+    @Override
+    public Optional<QuestionsEntity> findById(Long id) {
+        String sql = "select id, author, message, parent_question_id, reply_count, version, reply_number "
+                + "from questions_entity where id = ?";
+        Shard home = shard(id);
+        return Stream.concat(Stream.of(home), shards.stream().filter(shard -> shard != home))
+                .map(shard -> shard.jdbc().query(sql, ENTITY, id))
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> rows.get(0))
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return shard(id).jdbc().queryForList("select version from questions_entity where id = ? and parent_question_id is null",
+                Long.class, id).stream().findFirst();
+    }
+
+    @Override
+    public List<QuestionDetails> findAllQuestionDetails() {
+        return merge(scatter(shard -> shard.jdbc().query("select id, author, message, reply_count from questions_entity "
+                + "where parent_question_id is null order by id", QUESTION_DETAILS)), QuestionDetails::getId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Streams the questions in id order, reading one merged page of {@value #STREAM_PAGE_SIZE} questions at a time.
+     */
+    @Override
+    public Stream<QuestionDetails> streamAllQuestionDetails() {
+        return pages(after -> findQuestionDetailsPage(after, STREAM_PAGE_SIZE), QuestionDetails::getId);
+    }
+
+    @Override
+    public List<QuestionDetails> findQuestionDetailsByIds(Collection<Long> ids) {
+        Map<Shard, List<Long>> byShard = ids.stream().distinct().collect(Collectors.groupingBy(this::shard));
+        return byShard.entrySet().stream()
+                .flatMap(shard -> shard.getKey().namedJdbc().query("select id, author, message, reply_count "
+                                + "from questions_entity where id in (:ids) and parent_question_id is null",
+                        Collections.singletonMap("ids", shard.getValue()), QUESTION_DETAILS).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the first {@code limit} questions after the id from every shard in parallel and merges them, the page
+     * holds the {@code limit} lowest ids of all shards.
+     */
+    @Override
+    public List<QuestionDetails> findQuestionDetailsPage(long after, int limit) {
+        return merge(scatter(shard -> shard.jdbc().query("select id, author, message, reply_count from questions_entity "
+                + "where parent_question_id is null and id > ? order by id limit ?", QUESTION_DETAILS, after, limit)),
+                QuestionDetails::getId, limit);
+    }
+
+    @Override
+    public List<ReplyDetails> findReplyDetailsPage(Long questionId, long after, int limit) {
+        return shard(questionId).jdbc().query("select id, author, message from questions_entity "
+                        + "where parent_question_id = ? and id > ? order by id limit ?",
+                (rs, row) -> new ReplyDetails(rs.getLong("id"), rs.getString("author"), rs.getString("message")),
+                questionId, after, limit);
+    }
+
+    @Override
+    public List<QuestionsEntity> findRepliesAfterNumber(Long questionId, long after, int limit) {
+        return shard(questionId).jdbc().query("select id, author, message, parent_question_id, reply_count, version, "
+                        + "reply_number from questions_entity where parent_question_id = ? and reply_number > ? "
+                        + "order by reply_number limit ?", ENTITY, questionId, after, limit);
+    }
+
+    /**
+     * Streams the messages shard after shard, reading {@value #STREAM_PAGE_SIZE} messages at a time.
+     */
+    @Override
+    public Stream<IndexedMessage> streamIndexedMessages() {
+        return shards.stream().flatMap(shard -> pages(after -> shard.jdbc().query(
+                "select id, coalesce(parent_question_id, id) as question_id, author, message from questions_entity "
+                        + "where id > ? order by id limit ?",
+                (rs, row) -> (IndexedMessage) new Message(rs.getLong("id"), rs.getLong("question_id"),
+                        rs.getString("author"), rs.getString("message")),
+                after, STREAM_PAGE_SIZE), IndexedMessage::getId));
+    }
+
+    /**
+     * Repairs every shard in parallel, replies are in the shard of their question so each shard is repaired alone.
+     */
+    @Override
+    public int reconcileReplyCounts() {
+        return scatter(shard -> shard.jdbc().update("update questions_entity q "
+                + "set reply_count = (select count(r.id) from questions_entity r where r.parent_question_id = q.id), "
+                + "version = version + 1 "
+                + "where parent_question_id is null "
+                + "and reply_count <> (select count(r.id) from questions_entity r where r.parent_question_id = q.id)"))
+                .stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scatterExecutor.shutdown();
+        shards.forEach(Shard::close);
+    }
+
+    private Shard shard(long questionId) {
+        return shards.get(shardOf(questionId));
+    }
+
+    /**
+     * Runs a read on every shard in parallel.
+     *
+     * @return results of the shards in shard order.
+     */
+    private <T> List<T> scatter(Function<Shard, T> read) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> read.apply(shard), scatterExecutor))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    /**
+     * Merges lists sorted by id into one sorted list of at most {@code limit} elements.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, ToLongFunction<T> id, int limit) {
+        int total = sorted.stream().mapToInt(List::size).sum();
+        List<T> merged = new ArrayList<>(Math.min(total, limit));
+        int[] positions = new int[sorted.size()];
+        while (merged.size() < limit) {
+            int next = -1;
+            for (int i = 0; i < sorted.size(); i++) {
+                if (positions[i] < sorted.get(i).size() && (next < 0
+                        || id.applyAsLong(sorted.get(i).get(positions[i])) < id.applyAsLong(sorted.get(next).get(positions[next])))) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            merged.add(sorted.get(next).get(positions[next]++));
+        }
+        return merged;
+    }
+
+    /**
+     * Lazily concatenates keyset pages, the next page is read after the last id of the previous one once the
+     * stream reaches it. Ends with the first empty page.
+     */
+    private static <T> Stream<T> pages(LongFunction<List<T>> pageAfter, ToLongFunction<T> id) {
+        Iterator<T> iterator = new Iterator<T>() {
+            private Iterator<T> page = Collections.emptyIterator();
+            private long after;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (!page.hasNext() && !exhausted) {
+                    List<T> next = pageAfter.apply(after);
+                    exhausted = next.isEmpty();
+                    if (!exhausted) {
+                        after = id.applyAsLong(next.get(next.size() - 1));
+                    }
+                    page = next.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Value
+    private static class Message implements IndexedMessage {
+        Long id;
+        Long questionId;
+        String author;
+        String message;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.readmodel;
+
+/**
+ * Open addressing hash map from long keys to non-negative int values, without boxing keys or values and without an
+ * entry object per mapping: an entry costs 12 bytes of the two backing arrays. Not thread safe.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public final class LongIntHashMap {
+
+    /**
+     * Value returned for a key which is not mapped.
+     */
+    public static final int MISSING = -1;
+    private static final long EMPTY = 0;
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    /**
+     * The empty marker is a valid key, its value is kept apart from the table.
+     */
+    private int emptyKeyValue = MISSING;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Maps a key to a value, replacing the previous value of the key.
+     *
+     * @param value non-negative value.
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (emptyKeyValue == MISSING) {
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+        int i = index(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                grow();
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = index(oldKeys[j]);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Fibonacci hashing spreads sequential ids over the whole table.
+     */
+    private int index(long key) {
+        return (int) ((key * PHI) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.demo.readmodel;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory read model of all questions and replies which serves the question listing and question details.
+ * Questions and replies live in slots of parallel arrays, ids are mapped to slots by {@link LongIntHashMap} and the
+ * replies of a question are a sorted {@code long[]} of reply ids, so the model holds no boxed id and no entity.
+ * Besides its strings a question costs about 60 bytes and a reply about 50, a managed entity costs several hundred.
+ * <p>
+ * The model is loaded by {@link ReadModelInitializer} and maintained by the write path of
+ * {@link com.example.demo.service.QuestionService}, writes done outside of the service are not seen.
+ * Adding a message twice is ignored, reply counts are the number of replies held. A disabled model only allocates
+ * empty arrays, the capacity for {@code questions.read-model.expected-questions} is allocated when it is enabled.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class QuestionReadModel {
+
+    private static final long[] NO_REPLIES = new long[0];
+    private static final int MIN_CAPACITY = 16;
+
+    private final ReadModelProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap questionSlots;
+    /**
+     * Ids of all questions in increasing order, for keyset pages.
+     */
+    private long[] questionIds;
+    private String[] questionAuthors;
+    private String[] questionMessages;
+    private long[][] replyIds;
+    private int[] replySizes;
+    private int questions;
+
+    private final LongIntHashMap replySlots;
+    private String[] replyAuthors;
+    private String[] replyMessages;
+    private int replies;
+
+    public QuestionReadModel(ReadModelProperties properties) {
+        this.properties = properties;
+        int capacity = properties.isEnabled() ? Math.max(properties.getExpectedQuestions(), MIN_CAPACITY) : 0;
+        questionSlots = new LongIntHashMap(capacity);
+        questionIds = new long[capacity];
+        questionAuthors = new String[capacity];
+        questionMessages = new String[capacity];
+        replyIds = new long[capacity][];
+        replySizes = new int[capacity];
+        replySlots = new LongIntHashMap(capacity);
+        replyAuthors = new String[capacity];
+        replyMessages = new String[capacity];
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Adds a question without replies.
+     */
+    public void addQuestion(long id, String author, String message) {
+        lock.writeLock().lock();
+        try {
+            if (questionSlots.get(id) != LongIntHashMap.MISSING) {
+                return;
+            }
+            if (questions == questionAuthors.length) {
+                int capacity = Math.max(questions * 2, MIN_CAPACITY);
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                questionAuthors = Arrays.copyOf(questionAuthors, capacity);
+                questionMessages = Arrays.copyOf(questionMessages, capacity);
+                replyIds = Arrays.copyOf(replyIds, capacity);
+                replySizes = Arrays.copyOf(replySizes, capacity);
+            }
+            int slot = questions;
+            questionSlots.put(id, slot);
+            questionAuthors[slot] = author;
+            questionMessages[slot] = message;
+            replyIds[slot] = NO_REPLIES;
+            insertSorted(questionIds, questions, id);
+            questions++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a reply to a question held by the model, replies of unknown questions are ignored.
+     */
+    public void addReply(long id, long questionId, String author, String message) {
+        lock.writeLock().lock();
+        try {
+            int questionSlot = questionSlots.get(questionId);
+            if (questionSlot == LongIntHashMap.MISSING || replySlots.get(id) != LongIntHashMap.MISSING) {
+                return;
+            }
+            if (replies == replyAuthors.length) {
+                int capacity = Math.max(replies * 2, MIN_CAPACITY);
+                replyAuthors = Arrays.copyOf(replyAuthors, capacity);
+                replyMessages = Arrays.copyOf(replyMessages, capacity);
+            }
+            replySlots.put(id, replies);
+            replyAuthors[replies] = author;
+            replyMessages[replies] = message;
+            replies++;
+            int size = replySizes[questionSlot];
+            if (size == replyIds[questionSlot].length) {
+                replyIds[questionSlot] = Arrays.copyOf(replyIds[questionSlot], Math.max(4, size * 2));
+            }
+            insertSorted(replyIds[questionSlot], size, id);
+            replySizes[questionSlot] = size + 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a question with its reply count.
+     *
+     * @return details of the question, null if the model does not hold it.
+     */
+    public QuestionDetails findQuestion(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = questionSlots.get(id);
+            return slot == LongIntHashMap.MISSING ? null : details(id, slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset page of questions: the questions with an id greater than the given one, ordered by id.
+     *
+     * @param after id of the last question of the previous page, 0 for the first page.
+     * @param limit maximum number of questions in the page.
+     * @return details of the questions of the page.
+     */
+    public List<QuestionDetails> findQuestionPage(long after, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = firstAfter(questionIds, questions, after);
+            int to = (int) Math.min(questions, (long) from + limit);
+            List<QuestionDetails> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                page.add(details(questionIds[i], questionSlots.get(questionIds[i])));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads all questions with their reply count.
+     *
+     * @return details of all questions ordered by id.
+     */
+    public List<QuestionDetails> findAllQuestions() {
+        return findQuestionPage(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Keyset page of the replies of a question: the replies with an id greater than the given one, ordered by id.
+     *
+     * @param questionId id of the question.
+     * @param after      id of the last reply of the previous page, 0 for the first page.
+     * @param limit      maximum number of replies in the page.
+     * @return details of the replies of the page, empty if the model does not hold the question.
+     */
+    public List<ReplyDetails> findReplyPage(long questionId, long after, int limit) {
+        lock.readLock().lock();
+        try {
+            int questionSlot = questionSlots.get(questionId);
+            if (questionSlot == LongIntHashMap.MISSING) {
+                return new ArrayList<>();
+            }
+            long[] ids = replyIds[questionSlot];
+            int size = replySizes[questionSlot];
+            int from = firstAfter(ids, size, after);
+            int to = (int) Math.min(size, (long) from + limit);
+            List<ReplyDetails> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                int slot = replySlots.get(ids[i]);
+                page.add(new ReplyDetails(ids[i], replyAuthors[slot], replyMessages[slot]));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of questions held.
+     */
+    public int questionCount() {
+        lock.readLock().lock();
+        try {
+            return questions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of replies held.
+     */
+    public int replyCount() {
+        lock.readLock().lock();
+        try {
+            return replies;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private QuestionDetails details(long id, int slot) {
+        return new QuestionDetails(id, questionAuthors[slot], questionMessages[slot], (long) replySizes[slot]);
+    }
+
+    /**
+     * Inserts an id into the sorted first size elements of an array which has room for it.
+     */
+    private static void insertSorted(long[] ids, int size, long id) {
+        int index = size > 0 && ids[size - 1] < id
+                ? size  // ids mostly arrive in increasing order
+                : firstAfter(ids, size, id);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+    }
+
+    private static int firstAfter(long[] ids, int size, long after) {
+        int index = Arrays.binarySearch(ids, 0, size, after);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
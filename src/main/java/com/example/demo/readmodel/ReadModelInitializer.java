@@ -0,0 +1,64 @@
+package com.example.demo.readmodel;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Loads {@link QuestionReadModel} from {@link QuestionStore} once all beans are created. This happens before the
+ * web server accepts requests, so no write can interleave with the load.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class ReadModelInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadModelInitializer.class);
+
+    private final QuestionReadModel model;
+    private final QuestionStore store;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReadModelInitializer(QuestionReadModel model, QuestionStore store,
+                                PlatformTransactionManager transactionManager) {
+        this.model = model;
+        this.store = store;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (model.isEnabled()) {
+            load();
+        }
+    }
+
+    /**
+     * Reads all questions and then all replies into the model, questions first so that every reply finds its
+     * question whatever the order of the ids.
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.execute(status -> {
+            try (Stream<QuestionDetails> questions = store.streamAllQuestionDetails()) {
+                questions.forEach(question -> model.addQuestion(question.getId(), question.getAuthor(), question.getMessage()));
+            }
+            try (Stream<IndexedMessage> messages = store.streamIndexedMessages()) {
+                messages.filter(message -> !message.getId().equals(message.getQuestionId()))
+                        .forEach(reply -> model.addReply(reply.getId(), reply.getQuestionId(), reply.getAuthor(), reply.getMessage()));
+            }
+            return null;
+        });
+        log.info("Loaded {} questions and {} replies into the read model in {} ms",
+                model.questionCount(), model.replyCount(), System.currentTimeMillis() - start);
+    }
+}
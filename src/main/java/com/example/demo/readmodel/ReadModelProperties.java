@@ -0,0 +1,28 @@
+package com.example.demo.readmodel;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the in-memory read model of questions and replies, bound from {@code questions.read-model.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.read-model")
+public class ReadModelProperties {
+
+    /**
+     * Whether the question listing and question details are served from memory instead of the store.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of questions the model is sized for up front, it grows beyond it.
+     */
+    private int expectedQuestions = 10_000;
+}
@@ -0,0 +1,108 @@
+package com.example.demo.search;
+
+import com.example.demo.readmodel.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Numbers the questions of the search index densely in the order they are first indexed, so that postings and score
+ * accumulators work on int document numbers, and keeps the id and the number of terms of every question with its
+ * replies. A search reads a {@link Snapshot} without holding the lock.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class DocumentTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final LongIntHashMap numbers = new LongIntHashMap(INITIAL_CAPACITY);
+    private long[] questionIds = new long[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int size;
+    private int questions;
+    private long terms;
+
+    /**
+     * Adds the terms of a question or a reply to its document.
+     *
+     * @param questionId id of the question.
+     * @param question   whether the message is the question itself rather than a reply.
+     * @param length     number of terms of the message.
+     * @return number of the document of the question.
+     */
+    synchronized int add(long questionId, boolean question, int length) {
+        int document = numbers.get(questionId);
+        if (document == LongIntHashMap.MISSING) {
+            document = size++;
+            if (document == questionIds.length) {
+                questionIds = Arrays.copyOf(questionIds, document * 2);
+                lengths = Arrays.copyOf(lengths, document * 2);
+            }
+            questionIds[document] = questionId;
+            numbers.put(questionId, document);
+        }
+        if (question) {
+            questions++;
+        }
+        lengths[document] += length;
+        terms += length;
+        return document;
+    }
+
+    /**
+     * @return the documents numbered so far, the length of a document replied to meanwhile may or may not include
+     * the reply.
+     */
+    synchronized Snapshot snapshot() {
+        return new Snapshot(questionIds, lengths, size, questions, terms);
+    }
+
+    static final class Snapshot {
+        private final long[] questionIds;
+        private final int[] lengths;
+        private final int size;
+        private final int questions;
+        private final long terms;
+
+        private Snapshot(long[] questionIds, int[] lengths, int size, int questions, long terms) {
+            this.questionIds = questionIds;
+            this.lengths = lengths;
+            this.size = size;
+            this.questions = questions;
+            this.terms = terms;
+        }
+
+        /**
+         * Number of documents, documents numbered after the snapshot are not part of it.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Number of questions, replies of a question which was not indexed do not count.
+         */
+        int questions() {
+            return questions;
+        }
+
+        /**
+         * Number of terms of all documents.
+         */
+        long terms() {
+            return terms;
+        }
+
+        long questionId(int document) {
+            return questionIds[document];
+        }
+
+        int length(int document) {
+            return lengths[document];
+        }
+
+        long[] questionIds() {
+            return questionIds;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing one term with the number of occurrences of the term in them, see {@link DocumentTable}.
+ * Postings are kept in primitive arrays of 8 bytes per posting, in two segments: a main segment sorted by document
+ * with one posting per document, and a tail of postings appended out of order, by replies to older questions.
+ * The tail is merged into a new main segment once it grows past an eighth of it, so that an insert costs no
+ * arraycopy in the middle of the list and most of a scan runs in document order. A document may have a posting in
+ * both segments, the occurrences are summed when the term is scored.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class PostingList {
+
+    private static final int MIN_TAIL_SIZE = 64;
+
+    private int[] documents = new int[2];
+    private int[] frequencies = new int[2];
+    private int size;
+    private int[] tailDocuments = new int[2];
+    private int[] tailFrequencies = new int[2];
+    private int tailSize;
+
+    /**
+     * Adds occurrences of the term in a document.
+     *
+     * @param document    number of the question, replies are indexed under their question.
+     * @param occurrences number of occurrences of the term in the indexed message.
+     */
+    synchronized void add(int document, int occurrences) {
+        if (size > 0 && documents[size - 1] == document) {
+            frequencies[size - 1] += occurrences;
+        } else if (tailSize == 0 && (size == 0 || documents[size - 1] < document)) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = occurrences;
+            size++;
+        } else {
+            if (tailSize == tailDocuments.length) {
+                tailDocuments = Arrays.copyOf(tailDocuments, tailSize * 2);
+                tailFrequencies = Arrays.copyOf(tailFrequencies, tailSize * 2);
+            }
+            tailDocuments[tailSize] = document;
+            tailFrequencies[tailSize] = occurrences;
+            if (++tailSize > Math.max(MIN_TAIL_SIZE, size / 8)) {
+                merge();
+            }
+        }
+    }
+
+    /**
+     * Merges the tail into new arrays, so that a scan which read the previous ones is not affected.
+     */
+    private void merge() {
+        long[] tail = new long[tailSize];
+        for (int i = 0; i < tailSize; i++) {
+            tail[i] = (long) tailDocuments[i] << 32 | tailFrequencies[i];
+        }
+        Arrays.sort(tail);
+        int[] mergedDocuments = new int[Integer.highestOneBit((size + tailSize) * 2 - 1)];
+        int[] mergedFrequencies = new int[mergedDocuments.length];
+        int merged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < tail.length) {
+            int document;
+            int frequency;
+            if (j == tail.length || i < size && documents[i] <= (int) (tail[j] >>> 32)) {
+                document = documents[i];
+                frequency = frequencies[i++];
+            } else {
+                document = (int) (tail[j] >>> 32);
+                frequency = (int) tail[j++];
+            }
+            if (merged > 0 && mergedDocuments[merged - 1] == document) {
+                mergedFrequencies[merged - 1] += frequency;
+            } else {
+                mergedDocuments[merged] = document;
+                mergedFrequencies[merged++] = frequency;
+            }
+        }
+        documents = mergedDocuments;
+        frequencies = mergedFrequencies;
+        size = merged;
+        tailDocuments = new int[2];
+        tailFrequencies = new int[2];
+        tailSize = 0;
+    }
+
+    /**
+     * @return the postings appended so far, the lock is only held to read the arrays.
+     */
+    synchronized Snapshot snapshot() {
+        return new Snapshot(documents, frequencies, size, tailDocuments, tailFrequencies, tailSize);
+    }
+
+    static final class Snapshot {
+        private final int[] documents;
+        private final int[] frequencies;
+        private final int size;
+        private final int[] tailDocuments;
+        private final int[] tailFrequencies;
+        private final int tailSize;
+
+        private Snapshot(int[] documents, int[] frequencies, int size,
+                         int[] tailDocuments, int[] tailFrequencies, int tailSize) {
+            this.documents = documents;
+            this.frequencies = frequencies;
+            this.size = size;
+            this.tailDocuments = tailDocuments;
+            this.tailFrequencies = tailFrequencies;
+            this.tailSize = tailSize;
+        }
+
+        /**
+         * Number of postings, an upper bound of the number of documents containing the term.
+         */
+        int size() {
+            return size + tailSize;
+        }
+
+        /**
+         * Calls the visitor for every posting, those of the main segment in document order first.
+         *
+         * @param visitor receives the document number and the number of occurrences of the term of each posting.
+         */
+        void forEach(Visitor visitor) {
+            for (int i = 0; i < size; i++) {
+                visitor.visit(documents[i], frequencies[i]);
+            }
+            for (int i = 0; i < tailSize; i++) {
+                visitor.visit(tailDocuments[i], tailFrequencies[i]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(int document, int frequency);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index over the messages of questions and replies. Every term maps to the questions whose
+ * message or replies contain it, replies are indexed under their question so that a search returns questions.
+ * The index is maintained incrementally by the write path and rebuilt from the database on startup.
+ * Matches are ranked with BM25: a question is one document made of its message and replies, term frequencies
+ * saturate with {@value #K1} and are normalized by the length of the question relative to the average with {@value #B}.
+ * Scores are summed in primitive arrays and only the best offset + limit matches are kept, see {@link ScoreAccumulator}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class QuestionSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final SearchProperties properties;
+    private volatile IndexData data = new IndexData();
+    /**
+     * Messages indexed while a rebuild is running, applied to the rebuilt index before it is swapped in, null when
+     * no rebuild is running.
+     */
+    private List<Message> pending;
+    private Set<Long> pendingMessageIds;
+
+    public QuestionSearchIndex(SearchProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Adds a question or a reply to the index. While a rebuild is running the message is searchable at once and
+     * kept aside for the rebuilt index as well.
+     *
+     * @param messageId  id of the question or reply.
+     * @param questionId id of the question, equal to messageId for a question.
+     * @param message    text of the question or reply.
+     */
+    public synchronized void index(long messageId, long questionId, String message) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        data.add(messageId, questionId, message);
+        if (pending != null) {
+            pending.add(new Message(messageId, questionId, message));
+            pendingMessageIds.add(messageId);
+        }
+    }
+
+    /**
+     * Searches the questions containing any term of the query, ranked by BM25 relevance over all terms.
+     *
+     * @param query  free text query.
+     * @param offset number of best matches to skip, the search cursor is this offset.
+     * @param limit  maximum number of matches to return.
+     * @return the page of matching question ids and the total number of matches.
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        IndexData current = data;
+        DocumentTable.Snapshot documents = current.documents.snapshot();
+        int questions = Math.max(documents.questions(), 1);
+        double averageLength = Math.max((double) documents.terms() / questions, 1);
+        List<PostingList.Snapshot> terms = new ArrayList<>();
+        long maxDocuments = 0;
+        for (String term : tokenize(query).keySet()) {
+            PostingList postings = current.postings.get(term);
+            if (postings != null) {
+                PostingList.Snapshot snapshot = postings.snapshot();
+                terms.add(snapshot);
+                maxDocuments += snapshot.size();
+            }
+        }
+        ScoreAccumulator scores = new ScoreAccumulator((int) Math.min(maxDocuments, documents.size()),
+                documents.size());
+        for (PostingList.Snapshot postings : terms) {
+            scores.startTerm();
+            postings.forEach((document, tf) -> {
+                if (document < documents.size()) {  // numbered after the snapshot
+                    scores.addOccurrences(document, tf);
+                }
+            });
+            int df = scores.termDocuments();
+            double idf = Math.log(1 + (questions - df + 0.5) / (df + 0.5));
+            scores.score((document, tf) -> {
+                double saturation = K1 * (1 - B + B * documents.length(document) / averageLength);
+                return idf * tf * (K1 + 1) / (tf + saturation);
+            });
+        }
+        long[] ranked = scores.top(offset + limit, documents.questionIds());
+        List<Long> page = new ArrayList<>(Math.max(ranked.length - offset, 0));
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(ranked[i]);
+        }
+        return new SearchHits(page, scores.size());
+    }
+
+    /**
+     * Starts rebuilding the index from scratch. Searches keep using the current index, messages indexed meanwhile
+     * are added to it and kept aside until {@link Rebuild#finish()} applies them to the rebuilt index and swaps it in.
+     *
+     * @return the rebuild to feed with all messages of the database.
+     * @throws IllegalStateException if a rebuild is already running.
+     */
+    public synchronized Rebuild startRebuild() {
+        if (pending != null) {
+            throw new IllegalStateException("A rebuild of the search index is already running.");
+        }
+        pending = new ArrayList<>();
+        pendingMessageIds = ConcurrentHashMap.newKeySet();
+        return new Rebuild(new IndexData(), pendingMessageIds);
+    }
+
+    private synchronized void finishRebuild(IndexData rebuilt) {
+        for (Message message : pending) {
+            rebuilt.add(message.messageId, message.questionId, message.text);
+        }
+        data = rebuilt;
+        pending = null;
+        pendingMessageIds = null;
+    }
+
+    private synchronized void abortRebuild() {
+        pending = null;  // already in the current index
+        pendingMessageIds = null;
+    }
+
+    /**
+     * Splits a text into lower case terms of letters and digits and counts them.
+     *
+     * @param text text to split.
+     * @return number of occurrences by term, in order of first occurrence.
+     */
+    static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inTerm && start < 0) {
+                start = i;
+            } else if (!inTerm && start >= 0) {
+                terms.merge(text.substring(start, i).toLowerCase(Locale.ROOT), 1, Integer::sum);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Rebuild in progress, see {@link #startRebuild()}.
+     */
+    public final class Rebuild {
+        private final IndexData rebuilt;
+        private final Set<Long> skipped;
+
+        private Rebuild(IndexData rebuilt, Set<Long> skipped) {
+            this.rebuilt = rebuilt;
+            this.skipped = skipped;
+        }
+
+        /**
+         * Adds a message read from the database to the rebuilt index.
+         *
+         * @param messageId  id of the question or reply.
+         * @param questionId id of the question, equal to messageId for a question.
+         * @param message    text of the question or reply.
+         */
+        public void add(long messageId, long questionId, String message) {
+            if (!skipped.contains(messageId)) {  // indexed meanwhile by the write path, applied on finish
+                rebuilt.add(messageId, questionId, message);
+            }
+        }
+
+        /**
+         * Swaps the rebuilt index in.
+         */
+        public void finish() {
+            finishRebuild(rebuilt);
+        }
+
+        /**
+         * Drops the rebuilt index after a failure, the current index stays in use with the messages indexed meanwhile.
+         */
+        public void abort() {
+            abortRebuild();
+        }
+    }
+
+    private static final class Message {
+        private final long messageId;
+        private final long questionId;
+        private final String text;
+
+        private Message(long messageId, long questionId, String text) {
+            this.messageId = messageId;
+            this.questionId = questionId;
+            this.text = text;
+        }
+    }
+
+    private static final class IndexData {
+        private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+        private final DocumentTable documents = new DocumentTable();
+
+        private void add(long messageId, long questionId, String message) {
+            Map<String, Integer> terms = tokenize(message);
+            int length = 0;
+            for (int occurrences : terms.values()) {
+                length += occurrences;
+            }
+            int document = documents.add(questionId, messageId == questionId, length);
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {  // after numbering, see search
+                postings.computeIfAbsent(term.getKey(), t -> new PostingList()).add(document, term.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.demo.search;
+
+/**
+ * Scores of the documents matching one query, in an open addressing table of primitive arrays sized for the
+ * postings of the query, so that a search allocates in proportion to its matches and boxes nothing. When the query
+ * may match a large part of the documents, the arrays are indexed by the document number instead of hashing it:
+ * postings mostly come in document order, so that the accumulators are then written almost sequentially.
+ * The occurrences of one term are summed per document before the term is scored, a document may have several
+ * postings of a term. The best documents are selected with a bounded heap instead of sorting every match.
+ * Not thread safe.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class ScoreAccumulator {
+
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Document number + 1 of every slot, 0 for an empty slot.
+     */
+    private final int[] documents;
+    private final double[] scores;
+    /**
+     * Occurrences of the current term, 0 in the slots of documents which do not contain it.
+     */
+    private final int[] frequencies;
+    private final int mask;
+    /**
+     * Whether the slot of a document is its number, no slot is then probed.
+     */
+    private final boolean dense;
+    /**
+     * Slots of the documents containing any term of the query.
+     */
+    private final int[] matchedSlots;
+    private int size;
+    /**
+     * Slots of the documents containing the current term.
+     */
+    private final int[] termSlots;
+    private int termSize;
+
+    /**
+     * @param maxDocuments  upper bound of the number of matching documents.
+     * @param documentCount number of documents, every document number is below.
+     */
+    ScoreAccumulator(int maxDocuments, int documentCount) {
+        int hashed = Integer.highestOneBit(Math.max(maxDocuments, 4) * 2 - 1) << 1;
+        dense = hashed * 2L >= documentCount;  // the hash table would be at least half as large
+        int capacity = dense ? Math.max(documentCount, 1) : hashed;
+        documents = new int[capacity];
+        scores = new double[capacity];
+        frequencies = new int[capacity];
+        matchedSlots = new int[Math.max(maxDocuments, 1)];
+        termSlots = new int[matchedSlots.length];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Starts summing the occurrences of the next term of the query.
+     */
+    void startTerm() {
+        for (int i = 0; i < termSize; i++) {
+            frequencies[termSlots[i]] = 0;
+        }
+        termSize = 0;
+    }
+
+    /**
+     * Adds occurrences of the current term in a document.
+     */
+    void addOccurrences(int document, int occurrences) {
+        int key = document + 1;
+        int slot = dense ? document : (int) ((key * PHI) >>> 32) & mask;
+        while (documents[slot] != key) {
+            if (documents[slot] == 0) {
+                documents[slot] = key;
+                matchedSlots[size++] = slot;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (frequencies[slot] == 0) {
+            termSlots[termSize++] = slot;
+        }
+        frequencies[slot] += occurrences;
+    }
+
+    /**
+     * Number of documents containing the current term.
+     */
+    int termDocuments() {
+        return termSize;
+    }
+
+    /**
+     * Adds the score of the current term to every document containing it.
+     */
+    void score(TermScorer scorer) {
+        for (int i = 0; i < termSize; i++) {
+            int slot = termSlots[i];
+            scores[slot] += scorer.score(documents[slot] - 1, frequencies[slot]);
+        }
+    }
+
+    /**
+     * Number of documents containing any term of the query.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Selects the best documents, by score and then by lowest question id.
+     *
+     * @param limit       maximum number of documents to select.
+     * @param questionIds question id of every document.
+     * @return question ids of the selected documents, best first.
+     */
+    long[] top(int limit, long[] questionIds) {
+        int[] heap = new int[Math.min(limit, size)];  // worst selected slot first
+        int heapSize = 0;
+        double worstScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size && heap.length > 0; i++) {
+            int slot = matchedSlots[i];
+            if (scores[slot] < worstScore) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++, questionIds);
+            } else if (worse(heap[0], slot, questionIds)) {
+                heap[0] = slot;
+                siftDown(heap, heapSize, questionIds);
+            } else {
+                continue;
+            }
+            if (heapSize == heap.length) {
+                worstScore = scores[heap[0]];
+            }
+        }
+        long[] best = new long[heapSize];
+        while (heapSize > 0) {
+            best[heapSize - 1] = questionIds[documents[heap[0]] - 1];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, questionIds);
+        }
+        return best;
+    }
+
+    private void siftUp(int[] heap, int index, long[] questionIds) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(slot, heap[parent], questionIds)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int heapSize, long[] questionIds) {
+        if (heapSize == 0) {
+            return;
+        }
+        int slot = heap[0];
+        int index = 0;
+        for (int child = 1; child < heapSize; child = 2 * index + 1) {
+            if (child + 1 < heapSize && worse(heap[child + 1], heap[child], questionIds)) {
+                child++;
+            }
+            if (!worse(heap[child], slot, questionIds)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    private boolean worse(int slot, int other, long[] questionIds) {
+        int byScore = Double.compare(scores[slot], scores[other]);
+        return byScore != 0 ? byScore < 0
+                : questionIds[documents[slot] - 1] > questionIds[documents[other] - 1];
+    }
+
+    interface TermScorer {
+        double score(int document, int frequency);
+    }
+}
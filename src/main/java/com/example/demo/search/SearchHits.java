@@ -0,0 +1,24 @@
+package com.example.demo.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@AllArgsConstructor
+public class SearchHits {
+    /**
+     * Ids of the matching questions of the page, best match first.
+     */
+    private final List<Long> questionIds;
+    /**
+     * Number of matching questions over all pages.
+     */
+    private final int total;
+}
@@ -0,0 +1,78 @@
+package com.example.demo.search;
+
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.routing.ReplicaRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds {@link QuestionSearchIndex} from the messages of {@link QuestionStore} when the application starts.
+ * The messages are read from the primary database: a replica may lack messages indexed before the rebuild started,
+ * the swap would drop them from the index.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class SearchIndexInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private final QuestionSearchIndex index;
+    private final SearchProperties properties;
+    private final QuestionStore store;
+    private final TransactionTemplate transactionTemplate;
+
+    public SearchIndexInitializer(QuestionSearchIndex index, SearchProperties properties, QuestionStore store,
+                                  PlatformTransactionManager transactionManager) {
+        this.index = index;
+        this.properties = properties;
+        this.store = store;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reads all messages from the store into a new index and swaps it in. If reading fails the current index is
+     * kept, with the messages written meanwhile.
+     *
+     * @return number of indexed messages.
+     */
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        QuestionSearchIndex.Rebuild rebuild = index.startRebuild();
+        long count;
+        try {
+            count = ReplicaRouting.onPrimary(() -> transactionTemplate.execute(status -> {
+                long indexed = 0;
+                try (Stream<IndexedMessage> messages = store.streamIndexedMessages()) {
+                    for (IndexedMessage message : (Iterable<IndexedMessage>) messages::iterator) {
+                        rebuild.add(message.getId(), message.getQuestionId(), message.getMessage());
+                        indexed++;
+                    }
+                }
+                return indexed;
+            }));
+        } catch (RuntimeException ex) {
+            rebuild.abort();
+            throw ex;
+        }
+        rebuild.finish();
+        log.info("Indexed {} messages for search in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the full-text search over question and reply messages, bound from {@code questions.search.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.search")
+public class SearchProperties {
+
+    /**
+     * Whether messages are indexed and the search endpoint is served.
+     */
+    private boolean enabled = true;
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.QuestionsException;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque keyset cursors handed out by the paginated endpoints and validates page sizes.
+ * A cursor wraps the id of the last row of a page, clients must not rely on its format.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public final class Cursors {
+
+    private static final String PREFIX = "id:";
+
+    private Cursors() {
+    }
+
+    /**
+     * Creates the cursor pointing after the given id.
+     *
+     * @param lastId id of the last row returned in a page.
+     * @return opaque cursor string.
+     */
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the id wrapped in a cursor. A missing cursor means "start from the beginning".
+     *
+     * @param cursor opaque cursor received from the client, may be null.
+     * @return id after which the next page starts.
+     * @throws QuestionsException if the cursor is not one handed out by {@link #encode(Long)}.
+     */
+    public static long decode(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Unknown cursor format.");
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new QuestionsException("Invalid input. Cursor is not valid.", ex, "ERROR010", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Validates the page size requested by the client.
+     *
+     * @param limit       page size requested by the client, may be null.
+     * @param defaultSize page size used when the client did not request one.
+     * @param maxSize     largest page size a client may request.
+     * @return page size to use.
+     * @throws QuestionsException if the requested page size is out of range.
+     */
+    public static int pageSize(Integer limit, int defaultSize, int maxSize) {
+        if (limit == null) {
+            return defaultSize;
+        }
+        if (limit < 1 || limit > maxSize) {
+            throw new QuestionsException("Invalid input. Limit must be between 1 and " + maxSize + ".", null, "ERROR011", HttpStatus.BAD_REQUEST);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the direct JSON writing of the question listing and question details, bound from
+ * {@code questions.json-streaming.*}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "questions.json-streaming")
+public class JsonStreamingProperties {
+
+    /**
+     * Whether the paged listing and the question details are written from the rows of the store by
+     * {@link QuestionJsonWriter} instead of through the response DTOs. Ignored while the read model is enabled.
+     */
+    private boolean enabled = false;
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.persistence.QuestionStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for the export endpoint which dumps all questions as newline-delimited JSON.
+ * Questions are read from a cursor of {@link QuestionStore} and written to the response one by one,
+ * so memory use does not grow with the number of questions.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class QuestionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionExportService.class);
+    private static final int FLUSH_EVERY = 500;
+
+    private final QuestionStore store;
+    private final ObjectWriter writer;
+    private final TransactionTemplate transactionTemplate;
+
+    public QuestionExportService(QuestionStore store, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.writer = objectMapper.writerFor(QuestionDetails.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * exportQuestions endpoint implementation. The returned body streams one JSON document per question and line,
+     * the first question is flushed as soon as it is read so the client sees the first bytes immediately.
+     *
+     * @return body writing all questions in id order to the response.
+     */
+    public StreamingResponseBody exportQuestions() {
+        return out -> transactionTemplate.execute(status -> {
+            try (Stream<QuestionDetails> questions = store.streamAllQuestionDetails();
+                 JsonGenerator generator = writer.getFactory().createGenerator(out)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);  // the newline is the only separator between questions
+                long count = 0;
+                Iterator<QuestionDetails> iterator = questions.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (++count % FLUSH_EVERY == 1) {
+                        generator.flush();
+                    }
+                }
+                log.info("Exported {} questions", count);
+                return count;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Exception occurred while exporting Questions.", ex);
+            }
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.persistence.MessageRowHandler;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.readmodel.QuestionReadModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the paged question listing and the question details of {@link QuestionService} by writing the JSON
+ * straight from the rows of {@link QuestionStore} with {@link QuestionJsonWriter}, when
+ * {@code questions.json-streaming.enabled} is set. The responses are the same as those of {@link QuestionService},
+ * but no entity, DTO or list is built per row. The JSON is generated straight onto the response stream, without a
+ * copy of the whole body, and sent chunked. The rows of a listing page are read before anything is written, so that
+ * the entity tag and the next cursor header are known and a read error gets the usual error response. The replies
+ * of a question are written as they are read: an error before the response is committed still gets the usual error
+ * response, a later one cuts the response short. The first page of replies is not cached.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+public class QuestionJsonService {
+
+    private final QuestionStore store;
+    private final QuestionReadModel readModel;
+    private final JsonStreamingProperties properties;
+    private final QuestionJsonWriter writer;
+
+    public QuestionJsonService(QuestionStore store, QuestionReadModel readModel,
+                               JsonStreamingProperties properties, ObjectMapper objectMapper) {
+        this.store = store;
+        this.readModel = readModel;
+        this.properties = properties;
+        this.writer = new QuestionJsonWriter(objectMapper.getFactory());
+    }
+
+    /**
+     * @return whether the listing and question details are written by this service, the read model takes
+     * precedence.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled() && !readModel.isEnabled();
+    }
+
+    /**
+     * Same response as {@link QuestionService#getListOfQuestions(String, Integer)}, written to the servlet response.
+     * The entity tag of the page is hashed from the rows as they are read, 304 Not Modified is answered when it
+     * matches.
+     *
+     * @param after   opaque cursor returned by the previous page, null for the first page.
+     * @param limit   maximum number of questions in the page.
+     * @param request used to answer 304 Not Modified when the client already has the current version of the page.
+     * @throws QuestionsException runtime exception if the paging input is invalid or an error occurs while reading.
+     * @throws IOException        if the response cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public void writeListOfQuestions(String after, Integer limit, WebRequest request,
+                                     HttpServletResponse response) throws IOException {
+        long afterId = Cursors.decode(after);
+        int pageSize = Cursors.pageSize(limit, QuestionService.DEFAULT_PAGE_SIZE, QuestionService.MAX_PAGE_SIZE);
+        QuestionPageEtag etag = new QuestionPageEtag(afterId, pageSize);
+        PageRows rows = new PageRows(pageSize + 1);
+        try {
+            store.forEachQuestionDetails(afterId, pageSize + 1, (id, author, message, replies) -> {
+                if (rows.size < pageSize) {
+                    etag.add(id, author, message, replies);
+                } else {  // the extra row only tells whether there is a next page
+                    etag.nextPage();
+                }
+                rows.row(id, author, message, replies);
+            });
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while reading Questions from Database.", ex, "ERROR0034", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (request.checkNotModified(etag.toString())) {
+            return;
+        }
+        if (rows.size > pageSize) {
+            response.setHeader(QuestionService.NEXT_CURSOR_HEADER, Cursors.encode(rows.ids[pageSize - 1]));
+        }
+        startResponse(response);
+        writer.writeQuestionPage(rows::forEach, pageSize, response.getOutputStream());
+    }
+
+    /**
+     * Same response as {@link QuestionService#getQuestion(Long, String, Integer)}, written to the servlet response.
+     *
+     * @param questionId   of the question for which the details are requested.
+     * @param repliesAfter opaque cursor returned as nextRepliesCursor by the previous page, null for the first page.
+     * @param repliesLimit maximum number of replies in the page.
+     * @throws QuestionsException runtime exception if the paging input is invalid, an error occurs while reading
+     *                               or in input questionId not present in the store.
+     * @throws IOException        if the response cannot be written.
+     */
+    @Transactional(readOnly = true)
+    public void writeQuestion(Long questionId, String repliesAfter, Integer repliesLimit,
+                              HttpServletResponse response) throws IOException {
+        long afterId = Cursors.decode(repliesAfter);
+        int pageSize = Cursors.pageSize(repliesLimit, QuestionService.DEFAULT_REPLIES_PAGE_SIZE, QuestionService.MAX_PAGE_SIZE);
+        QuestionsEntity question;
+        try {
+            question = store.findById(questionId).orElseThrow(
+                    () -> new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND)
+            );
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND);
+        }
+        startResponse(response);
+        try {
+            writer.writeQuestion(question.getId(), question.getAuthor(), question.getMessage(), question.getReplyCount(),
+                    handler -> store.forEachReplyDetails(questionId, afterId, pageSize + 1, handler), pageSize,
+                    response.getOutputStream());
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            if (!response.isCommitted()) {  // the error response replaces the part of the JSON still buffered
+                response.resetBuffer();
+            }
+            throw new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private static void startResponse(HttpServletResponse response) {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    /**
+     * Column values of the rows of a listing page, held until the entity tag and the next cursor header are known.
+     */
+    private static final class PageRows implements MessageRowHandler {
+
+        private final long[] ids;
+        private final String[] authors;
+        private final String[] messages;
+        private final long[] replies;
+        private int size;
+
+        private PageRows(int capacity) {
+            ids = new long[capacity];
+            authors = new String[capacity];
+            messages = new String[capacity];
+            replies = new long[capacity];
+        }
+
+        @Override
+        public void row(long id, String author, String message, long replies) {
+            ids[size] = id;
+            authors[size] = author;
+            messages[size] = message;
+            this.replies[size++] = replies;
+        }
+
+        private void forEach(MessageRowHandler handler) {
+            for (int i = 0; i < size; i++) {
+                handler.row(ids[i], authors[i], messages[i], replies[i]);
+            }
+        }
+    }
+}
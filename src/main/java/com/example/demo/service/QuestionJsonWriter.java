@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.persistence.MessageRowHandler;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes the JSON of a page of {@link QuestionDetails} and of a {@link QuestionsResponse} token by token from the
+ * rows handed to a {@link MessageRowHandler}, no object is built for a row. The output is the same, byte for byte,
+ * as Jackson's serialization of the DTOs: same fields in the same order, nulls included. The JSON goes straight
+ * to the output stream through the buffer of the generator, no copy of the whole body is made.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QuestionJsonWriter {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString AUTHOR = new SerializedString("author");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString REPLIES = new SerializedString("replies");
+    private static final SerializableString TOTAL_REPLIES = new SerializedString("totalReplies");
+    private static final SerializableString NEXT_REPLIES_CURSOR = new SerializedString("nextRepliesCursor");
+
+    private final JsonFactory factory;
+
+    public QuestionJsonWriter(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Writes a page of questions as a JSON array.
+     *
+     * @param rows     hands up to one more question than the page size to the handler, in id order.
+     * @param pageSize maximum number of questions written, an extra question tells that there is a next page.
+     * @param out      receives the JSON as it is generated, it is flushed but not closed.
+     * @return the id after which the next page starts, null on the last page.
+     * @throws IOException if the JSON cannot be written to the stream.
+     */
+    public Long writeQuestionPage(Consumer<MessageRowHandler> rows, int pageSize, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            RowWriter writer = new RowWriter(generator, pageSize, true);
+            generator.writeStartArray();
+            rows.accept(writer);
+            generator.writeEndArray();
+            return writer.more ? writer.lastId : null;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes a question with a page of its replies as a JSON object.
+     *
+     * @param replies  hands up to one more reply than the page size to the handler, in id order.
+     * @param pageSize maximum number of replies written, an extra reply tells that there is a next page.
+     * @param out      receives the JSON as it is generated, it is flushed but not closed.
+     * @throws IOException if the JSON cannot be written to the stream.
+     */
+    public void writeQuestion(long id, String author, String message, long totalReplies,
+                              Consumer<MessageRowHandler> replies, int pageSize, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            RowWriter writer = new RowWriter(generator, pageSize, false);
+            generator.writeStartObject();
+            writeMessage(generator, id, author, message);
+            generator.writeFieldName(REPLIES);
+            generator.writeStartArray();
+            replies.accept(writer);
+            generator.writeEndArray();
+            generator.writeFieldName(TOTAL_REPLIES);
+            generator.writeNumber(totalReplies);
+            generator.writeFieldName(NEXT_REPLIES_CURSOR);
+            generator.writeString(writer.more ? Cursors.encode(writer.lastId) : null);
+            generator.writeEndObject();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return factory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writeMessage(JsonGenerator generator, long id, String author, String message) throws IOException {
+        generator.writeFieldName(ID);
+        generator.writeNumber(id);
+        generator.writeFieldName(AUTHOR);
+        generator.writeString(author);
+        generator.writeFieldName(MESSAGE);
+        generator.writeString(message);
+    }
+
+    /**
+     * Writes every row as an object of the current array until the page is full, and remembers whether a row
+     * was left out.
+     */
+    private static final class RowWriter implements MessageRowHandler {
+
+        private final JsonGenerator generator;
+        private final int pageSize;
+        private final boolean questions;
+        private int count;
+        private long lastId;
+        private boolean more;
+
+        private RowWriter(JsonGenerator generator, int pageSize, boolean questions) {
+            this.generator = generator;
+            this.pageSize = pageSize;
+            this.questions = questions;
+        }
+
+        @Override
+        public void row(long id, String author, String message, long replies) {
+            if (count == pageSize) {
+                more = true;
+                return;
+            }
+            try {
+                generator.writeStartObject();
+                writeMessage(generator, id, author, message);
+                if (questions) {
+                    generator.writeFieldName(REPLIES);
+                    generator.writeNumber(replies);
+                }
+                generator.writeEndObject();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            count++;
+            lastId = id;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.model.QuestionDetails;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Strong entity tag of a page of the question listing, hashed from the rows of the page as they are read so that
+ * it costs no query of its own. Every field written to the response is hashed, the tag changes whenever a question
+ * of the page, its reply count, the set of questions in the page or the presence of a next page changes.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+final class QuestionPageEtag {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long afterId;
+    private final int pageSize;
+    private long hash = FNV_OFFSET_BASIS;
+    private boolean hasNextPage;
+
+    QuestionPageEtag(long afterId, int pageSize) {
+        this.afterId = afterId;
+        this.pageSize = pageSize;
+    }
+
+    static String of(long afterId, int pageSize, List<QuestionDetails> page, boolean hasNextPage) {
+        QuestionPageEtag etag = new QuestionPageEtag(afterId, pageSize);
+        for (QuestionDetails question : page) {
+            etag.add(question.getId(), question.getAuthor(), question.getMessage(), question.getReplies());
+        }
+        if (hasNextPage) {
+            etag.nextPage();
+        }
+        return etag.toString();
+    }
+
+    /**
+     * Hashes one question of the page, in page order.
+     */
+    void add(long id, String author, String message, long replies) {
+        hash = (hash ^ id) * FNV_PRIME;
+        hash = (hash ^ replies) * FNV_PRIME;
+        hash = (hash ^ Objects.hashCode(author)) * FNV_PRIME;
+        hash = (hash ^ Objects.hashCode(message)) * FNV_PRIME;
+    }
+
+    /**
+     * Marks the page as followed by a next page, so that a full last page gets a new tag once a question is added
+     * after it and the client learns the next cursor.
+     */
+    void nextPage() {
+        hasNextPage = true;
+    }
+
+    @Override
+    public String toString() {
+        return "\"l-" + afterId + "-" + pageSize + (hasNextPage ? "-n-" : "-") + Long.toHexString(hash) + "\"";
+    }
+}
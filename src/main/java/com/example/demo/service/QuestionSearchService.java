@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.search.QuestionSearchIndex;
+import com.example.demo.search.SearchHits;
+import com.example.demo.search.SearchProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the search endpoint. Matching questions are ranked by {@link QuestionSearchIndex},
+ * their details are then read from {@link QuestionStore} in one query.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestionSearchService {
+
+    /**
+     * Response header carrying the total number of matches of a search.
+     */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final QuestionSearchIndex index;
+    private final SearchProperties properties;
+    private final QuestionStore store;
+
+    /**
+     * searchQuestions endpoint implementation. Finds the questions whose message or replies contain the terms
+     * of the query, best match first.
+     *
+     * @param query free text query.
+     * @param after opaque cursor returned by the previous page, null for the first page. It encodes the offset of the
+     *              page in the ranking.
+     * @param limit maximum number of questions in the page, defaults to {@value #DEFAULT_PAGE_SIZE}.
+     * @return questionDetails of type {@link List<QuestionDetails>} with the total number of matches in the
+     * {@value #TOTAL_COUNT_HEADER} header and the cursor of the next page in the
+     * {@value QuestionService#NEXT_CURSOR_HEADER} header.
+     * @throws QuestionsException runtime exception if search is disabled, the input is invalid or an error occurs
+     *                            during JPA operation.
+     */
+    public ResponseEntity<List<QuestionDetails>> searchQuestions(String query, String after, Integer limit) {
+        if (!properties.isEnabled()) {
+            throw new QuestionsException("Search is disabled.", null, "ERROR014", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (StringUtils.isEmpty(query) || query.trim().isEmpty()) {
+            throw new QuestionsException("Invalid input. Query cannot be empty or null.", null, "ERROR015", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        long offset = Cursors.decode(after);
+        int pageSize = Cursors.pageSize(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        SearchHits hits = index.search(query, (int) Math.min(offset, Integer.MAX_VALUE - pageSize), pageSize);
+        try {
+            Map<Long, Integer> rank = new HashMap<>();
+            for (Long questionId : hits.getQuestionIds()) {
+                rank.put(questionId, rank.size());
+            }
+            List<QuestionDetails> questions = hits.getQuestionIds().isEmpty()
+                    ? Collections.<QuestionDetails>emptyList()
+                    : store.findQuestionDetailsByIds(hits.getQuestionIds()).stream()
+                    .sorted(Comparator.comparing(question -> rank.get(question.getId())))
+                    .collect(Collectors.toList());
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(hits.getTotal()));
+            if (offset + pageSize < hits.getTotal()) {
+                response.header(QuestionService.NEXT_CURSOR_HEADER, Cursors.encode(offset + pageSize));
+            }
+            return response.body(questions);
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while reading Questions from Database.", ex, "ERROR0034", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+}
@@ -1,32 +1,75 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.QuestionDetailsCache;
 import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.feed.ReplyEvent;
+import com.example.demo.feed.ReplyFeed;
 import com.example.demo.model.*;
+import com.example.demo.persistence.QuestionStore;
 import com.example.demo.persistence.QuestionsEntity;
-import com.example.demo.persistence.QuestionsRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.persistence.routing.ReplicaRouting;
+import com.example.demo.readmodel.QuestionReadModel;
+import com.example.demo.search.QuestionSearchIndex;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Service for {@link com.example.demo.api.QuestionsApiController} which implements the api endpoints.
- * {@link QuestionsRepository} is injected via constructor to provide support for jpa operations.
+ * {@link QuestionStore} is injected via constructor to provide support for the storage operations.
+ * Question details are read through {@link QuestionDetailsCache}, writers invalidate the questions they change
+ * and add new messages to {@link QuestionSearchIndex} and {@link QuestionReadModel}. When the read model is enabled
+ * the question listing and question details are read from it instead of the store. Committed replies are published
+ * to the streams of their question through {@link ReplyFeed}.
+ * Reads run in read-only transactions, which are served by the replicas of the database when they are enabled,
+ * see {@link com.example.demo.persistence.routing.ReplicaRoutingConfiguration}.
  *
  * @author Narasimha Reddy Guthireddy
  */
 
 @Component
-@RequiredArgsConstructor
 public class QuestionService {
 
-    private final QuestionsRepository repository;
+    /**
+     * Response header carrying the cursor of the next page of a paginated listing.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int DEFAULT_REPLIES_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final QuestionStore store;
+    private final QuestionDetailsCache cache;
+    private final QuestionSearchIndex searchIndex;
+    private final QuestionReadModel readModel;
+    private final ReplyFeed replyFeed;
+    private final TransactionTemplate transactionTemplate;
+
+    public QuestionService(QuestionStore store, QuestionDetailsCache cache, QuestionSearchIndex searchIndex,
+                           QuestionReadModel readModel, ReplyFeed replyFeed,
+                           PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.readModel = readModel;
+        this.replyFeed = replyFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     /**
      * registerQuestion endpoint implementation. Input question details are used to create the new question in DB.
@@ -36,15 +79,16 @@ public class QuestionService {
      * @throws QuestionsException runtime exception if an error occurs during JPA operation.
      */
     public ResponseEntity<QuestionDetails> registerQuestion(MessageQuestionReplyBody body) {
-        validateInputRequest(body);
+        RequestValidator.validate(body);
         try {
             return ResponseEntity.ok(
-                    Optional.of(repository.save(   //Save Question Entity to DB
+                    Optional.of(store.save(   //Save Question Entity to DB
                             QuestionsEntity.builder()  //Build Question Entity and pass it to save method.
                                     .author(body.getAuthor())
                                     .message(body.getMessage())
                                     .build()
                     ))
+                            .map(this::indexAfterCommit)
                             .map(entity -> QuestionDetails.builder()  // Use question Entity to create Response: Question Details.
                                     .author(entity.getAuthor())
                                     .id(entity.getId())
@@ -60,6 +104,11 @@ public class QuestionService {
 
     /**
      * messageReply endpoint implementation. Input reply details are used to create the new reply in DB for a given question.
+     * The reply is saved and counted in the reply count of the question in one write of the store, see
+     * {@link QuestionStore#addReplies}. The count update also tells whether the question exists so the question is
+     * never loaded. With the default store a reply still costs three statements, the count update, the insert and the
+     * update of the question summary, plus a sequence fetch per block of ids: the two updates touch two tables and
+     * cannot be folded into the insert.
      *
      * @param requestBody question request body of type {@link MessageQuestionReplyBody}.
      * @param questionId  input questionId for the reply is saved.
@@ -67,101 +116,407 @@ public class QuestionService {
      * @throws QuestionsException runtime exception if an error occurs during JPA operation or in input questionId not
      *                               present in the DB.
      */
+    @Transactional
     public ResponseEntity<messageReplyResponse> messageReply(Long questionId, MessageQuestionReplyBody requestBody) {
-        validateInputRequest(requestBody);
+        RequestValidator.validate(requestBody);
         try {
-            repository.findById(questionId)
-                    .orElseThrow(
-                            () -> new QuestionsException("Question Not Found.", null, "ERROR002", HttpStatus.NOT_FOUND)
-                    );
-            return ResponseEntity.ok(
-                    Optional.of(repository.save(
-                            QuestionsEntity.builder()
-                                    .author(requestBody.getAuthor())
-                                    .message(requestBody.getMessage())
-                                    .parentQuestionId(questionId)
-                                    .build()
-                    ))
-                            .map(entity -> messageReplyResponse.builder()
-                                    .author(entity.getAuthor())
-                                    .id(entity.getId())
-                                    .message(entity.getMessage())
-                                    .questionId(entity.getParentQuestionId())
-                                    .build())
-                            .get()
-            );
+            QuestionsEntity reply = store.addReply(questionId,
+                    QuestionsEntity.builder()
+                            .author(requestBody.getAuthor())
+                            .message(requestBody.getMessage())
+                            .build()
+            ).orElseThrow(() -> new QuestionsException("Question Not Found.", null, "ERROR002", HttpStatus.NOT_FOUND));
+            indexAfterCommit(reply);  // the read model is updated before the cache is invalidated, a reload sees the reply
+            afterCommit(() -> cache.invalidate(questionId));
+            messageReplyResponse response = messageReplyResponse.builder()
+                    .author(reply.getAuthor())
+                    .id(reply.getId())
+                    .message(reply.getMessage())
+                    .questionId(reply.getParentQuestionId())
+                    .build();
+            ReplyEvent event = new ReplyEvent(reply.getReplyNumber(), response);
+            afterCommit(() -> replyFeed.publish(event));
+            return ResponseEntity.ok(response);
+        } catch (QuestionsException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new QuestionsException("Reply Not Found. ", ex, "ERROR001", HttpStatus.NOT_FOUND);
         }
     }
 
     /**
-     * getListOfQuestions endpoint implementation. Reads all questions in the Db and return to the requester.
+     * Bulk registerQuestion endpoint implementation. Every item is validated with the rules of
+     * {@link #registerQuestion}, then the valid questions are inserted in one transaction with JDBC statement batching.
+     * Invalid items are reported and skipped, they do not prevent the others from being saved.
+     *
+     * @param bodies question request bodies of type {@link MessageQuestionReplyBody}.
+     * @return one result of type {@link BatchItemResult} per item in request order, with the id of the new question
+     * or the validation error of the item.
+     * @throws QuestionsException runtime exception if the batch is empty or too large or an error occurs during JPA operation.
+     */
+    @Transactional
+    public ResponseEntity<List<BatchItemResult>> registerQuestions(List<MessageQuestionReplyBody> bodies) {
+        BatchItemResult[] results = new BatchItemResult[validateBatchSize(bodies)];
+        List<Integer> valid = validateBatchItems(bodies, results);
+        try {
+            List<QuestionsEntity> questions = valid.isEmpty() ? Collections.emptyList()
+                    : store.saveAll(valid.stream()
+                    .map(i -> QuestionsEntity.builder()
+                            .author(bodies.get(i).getAuthor())
+                            .message(bodies.get(i).getMessage())
+                            .build())
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < questions.size(); i++) {
+                indexAfterCommit(questions.get(i));
+                results[valid.get(i)] = BatchItemResult.builder().index(valid.get(i)).id(questions.get(i).getId()).build();
+            }
+            return ResponseEntity.ok(Arrays.asList(results));
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while saving Questions to Database.", ex, "ERROR003", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * Bulk messageReply endpoint implementation. Every item is validated with the rules of {@link #messageReply},
+     * then the valid replies are saved and counted in one write of the store, with JDBC statement batching, and the
+     * reply count of the question is updated once, which also tells whether the question exists. Invalid items are
+     * reported and skipped, they do not prevent the others from being saved.
+     *
+     * @param questionId    input questionId for the replies are saved.
+     * @param requestBodies reply request bodies of type {@link MessageQuestionReplyBody}.
+     * @return one result of type {@link BatchItemResult} per item in request order, with the id of the new reply
+     * or the validation error of the item.
+     * @throws QuestionsException runtime exception if the batch is empty or too large, an error occurs during JPA
+     *                               operation or in input questionId not present in the DB.
+     */
+    @Transactional
+    public ResponseEntity<List<BatchItemResult>> messageReplies(Long questionId, List<MessageQuestionReplyBody> requestBodies) {
+        BatchItemResult[] results = new BatchItemResult[validateBatchSize(requestBodies)];
+        List<Integer> valid = validateBatchItems(requestBodies, results);
+        if (valid.isEmpty()) {
+            if (!store.findVersionById(questionId).isPresent()) {
+                throw new QuestionsException("Question Not Found.", null, "ERROR002", HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok(Arrays.asList(results));
+        }
+        try {
+            List<QuestionsEntity> replies = store.addReplies(questionId, valid.stream()
+                    .map(i -> QuestionsEntity.builder()
+                            .author(requestBodies.get(i).getAuthor())
+                            .message(requestBodies.get(i).getMessage())
+                            .build())
+                    .collect(Collectors.toList()))
+                    .orElseThrow(() -> new QuestionsException("Question Not Found.", null, "ERROR002", HttpStatus.NOT_FOUND));
+            replies.forEach(this::indexAfterCommit);
+            afterCommit(() -> cache.invalidate(questionId));
+            List<ReplyEvent> events = replies.stream()
+                    .map(entity -> new ReplyEvent(entity.getReplyNumber(), messageReplyResponse.builder()
+                            .author(entity.getAuthor())
+                            .id(entity.getId())
+                            .message(entity.getMessage())
+                            .questionId(entity.getParentQuestionId())
+                            .build()))
+                    .collect(Collectors.toList());
+            afterCommit(() -> events.forEach(replyFeed::publish));
+            for (int i = 0; i < replies.size(); i++) {
+                results[valid.get(i)] = BatchItemResult.builder().index(valid.get(i)).id(replies.get(i).getId()).build();
+            }
+            return ResponseEntity.ok(Arrays.asList(results));
+        } catch (QuestionsException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while saving Replies to Database.", ex, "ERROR013", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * Unpaged getListOfQuestions endpoint implementation. Reads all questions in the Db and return to the requester.
+     * Questions and their reply counts are read with a single query of the question summaries.
+     * Only served when the client explicitly opts in, see {@link #getListOfQuestions(String, Integer)} for the default.
      *
      * @return questionDetails of type {@link List<QuestionDetails>} of the new question Added.
      * @throws QuestionsException runtime exception if an error occurs during JPA operation.
      */
+    @Transactional(readOnly = true)
     public ResponseEntity<List<QuestionDetails>> getListOfQuestions() {
 
         try {
-            return ResponseEntity.ok(repository.findByParentQuestionIdIsNull()
-                    .stream()
-                    .map(entity -> QuestionDetails.builder()
-                            .message(entity.getMessage())
-                            .id(entity.getId())
-                            .author(entity.getAuthor())
-                            .replies((long) entity.getReplies().size())
-                            .build()
-                    )
-                    .collect(Collectors.toList()));
+            return ResponseEntity.ok(readModel.isEnabled()
+                    ? readModel.findAllQuestions()
+                    : store.findAllQuestionDetails());
         } catch (Exception ex) {
             throw new QuestionsException("Exception occurred while reading Questions from Database.", ex, "ERROR0034", HttpStatus.UNPROCESSABLE_ENTITY);
         }
     }
 
     /**
-     * getQuestion endpoint implementation. Input reply details are used to create the new reply in DB for a given question.
+     * Paginated getListOfQuestions endpoint implementation. Reads one keyset page of questions ordered by id,
+     * so the cost of a page does not depend on how deep the client pages. Questions and their reply counts
+     * are read with a single query of the question summaries, which does not depend on the number of replies either.
+     *
+     * @param after opaque cursor returned by the previous page, null for the first page.
+     * @param limit maximum number of questions in the page, defaults to {@value #DEFAULT_PAGE_SIZE}.
+     * @return questionDetails of type {@link List<QuestionDetails>} with the cursor of the next page in the
+     * {@value #NEXT_CURSOR_HEADER} header, the header is absent on the last page.
+     * @throws QuestionsException runtime exception if the paging input is invalid or an error occurs during JPA operation.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<QuestionDetails>> getListOfQuestions(String after, Integer limit) {
+        long afterId = Cursors.decode(after);
+        int pageSize = Cursors.pageSize(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        try {
+            List<QuestionDetails> page = readModel.isEnabled()  // one extra row tells whether there is a next page
+                    ? readModel.findQuestionPage(afterId, pageSize + 1)
+                    : store.findQuestionDetailsPage(afterId, pageSize + 1);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                response.header(NEXT_CURSOR_HEADER, Cursors.encode(page.get(pageSize - 1).getId()));
+            }
+            return response.body(page);
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while reading Questions from Database.", ex, "ERROR0034", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * Builds the strong entity tag of a page of the question listing from the questions of the page, as read by
+     * {@link #getListOfQuestions(String, Integer)}, without any query or serialization.
+     *
+     * @param after opaque cursor of the page, null for the first page.
+     * @param limit maximum number of questions in the page.
+     * @param page  questions of the page.
+     * @param hasNextPage whether the page is followed by a next page, that is whether a next cursor was returned.
+     * @return entity tag of the page, it changes whenever a question of the page, the set of questions or the
+     * presence of a next page changes.
+     * @throws QuestionsException runtime exception if the paging input is invalid.
+     */
+    public String getListOfQuestionsEtag(String after, Integer limit, List<QuestionDetails> page, boolean hasNextPage) {
+        return QuestionPageEtag.of(Cursors.decode(after), Cursors.pageSize(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE),
+                page, hasNextPage);
+    }
+
+    /**
+     * Builds the strong entity tag of a question with a page of its replies from the version of the question,
+     * without loading the replies.
+     *
+     * @param questionId   of the question.
+     * @param repliesAfter opaque cursor of the page of replies, null for the first page.
+     * @param repliesLimit maximum number of replies in the page.
+     * @return entity tag of the question page, null if the question does not exist.
+     * @throws QuestionsException runtime exception if the paging input is invalid or an error occurs during JPA operation.
+     */
+    @Transactional(readOnly = true)
+    public String getQuestionEtag(Long questionId, String repliesAfter, Integer repliesLimit) {
+        long afterId = Cursors.decode(repliesAfter);
+        int pageSize = Cursors.pageSize(repliesLimit, DEFAULT_REPLIES_PAGE_SIZE, MAX_PAGE_SIZE);
+        try {
+            return store.findVersionById(questionId)
+                    .map(version -> "\"q-" + questionId + "-" + version + "-" + afterId + "-" + pageSize + "\"")
+                    .orElse(null);
+        } catch (Exception ex) {
+            throw new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * getQuestion endpoint implementation. Reads the question with the first page of its replies.
      *
      * @param questionId of the question for which the details are requested.
      * @return questionsResponse of type {@link QuestionsResponse} of the question requested.
      * @throws QuestionsException runtime exception if an error occurs during JPA operation or in input questionId not
      *                               present in the DB.
      */
+    @Transactional(readOnly = true)
     public ResponseEntity<QuestionsResponse> getQuestion(@PathVariable("questionId") Long questionId) {
+        return getQuestion(questionId, null, null);
+    }
+
+    /**
+     * getQuestion endpoint implementation. Reads the question with one keyset page of its replies ordered by id,
+     * so threads with many replies are never materialized in full. The first page of replies with the default size
+     * is served from {@link QuestionDetailsCache}, a question invalidated recently is loaded into it from the primary
+     * database so that the lag of a replica is not cached.
+     *
+     * @param questionId   of the question for which the details are requested.
+     * @param repliesAfter opaque cursor returned as nextRepliesCursor by the previous page, null for the first page.
+     * @param repliesLimit maximum number of replies in the page, defaults to {@value #DEFAULT_REPLIES_PAGE_SIZE}.
+     * @return questionsResponse of type {@link QuestionsResponse} of the question requested with the total number of
+     * replies and the cursor of the next page of replies.
+     * @throws QuestionsException runtime exception if the paging input is invalid, an error occurs during JPA operation
+     *                               or in input questionId not present in the DB.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<QuestionsResponse> getQuestion(Long questionId, String repliesAfter, Integer repliesLimit) {
+        if (repliesAfter == null && repliesLimit == null) {
+            return ResponseEntity.ok(cache.get(questionId, id -> cache.isRecentlyInvalidated(id)
+                    ? ReplicaRouting.onPrimary(() -> readQuestion(id, 0L, DEFAULT_REPLIES_PAGE_SIZE))
+                    : readQuestion(id, 0L, DEFAULT_REPLIES_PAGE_SIZE)));
+        }
+        return ResponseEntity.ok(readQuestion(questionId, Cursors.decode(repliesAfter),
+                Cursors.pageSize(repliesLimit, DEFAULT_REPLIES_PAGE_SIZE, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * streamReplies endpoint implementation. Opens a Server-Sent Events stream of the new replies of a question.
+     * Events are identified by the {@link QuestionsEntity#getReplyNumber() reply number}, which grows in commit order
+     * unlike reply ids. A client which reconnects with the id of the last event it received first gets the replies
+     * committed after that one, read from the store after the subscription so that a reply committed in between is
+     * not lost. At most
+     * {@value #MAX_PAGE_SIZE} missed replies are sent, the stream then ends and the client reconnects for the next ones.
+     * The question and the missed replies are read in a short read-write transaction, so from the primary database,
+     * which ends before the emitter is returned: an open stream holds no database connection.
+     *
+     * @param questionId  of the question whose replies are streamed.
+     * @param lastEventId value of the Last-Event-ID header, the reply number of the last reply received, null on a
+     *                    first connection.
+     * @return emitter of the stream.
+     * @throws QuestionsException runtime exception if the Last-Event-ID is invalid, the question is not present in
+     *                               the DB or the stream cannot be opened.
+     */
+    public SseEmitter streamReplies(Long questionId, String lastEventId) {
+        long afterNumber = lastEventId(lastEventId);
+        return transactionTemplate.execute(status -> {
+            if (!store.findVersionById(questionId).isPresent()) {
+                throw new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND);
+            }
+            ReplyFeed.Subscription subscription = replyFeed.subscribe(questionId);
+            try {
+                List<ReplyEvent> missed = lastEventId == null ? Collections.emptyList()
+                        : store.findRepliesAfterNumber(questionId, afterNumber, MAX_PAGE_SIZE + 1).stream()
+                        .map(reply -> new ReplyEvent(reply.getReplyNumber(), messageReplyResponse.builder()
+                                .author(reply.getAuthor())
+                                .id(reply.getId())
+                                .message(reply.getMessage())
+                                .questionId(questionId)
+                                .build()))
+                        .collect(Collectors.toList());
+                boolean more = missed.size() > MAX_PAGE_SIZE;
+                subscription.start(more ? missed.subList(0, MAX_PAGE_SIZE) : missed, more);
+                return subscription.getEmitter();
+            } catch (Exception ex) {
+                subscription.cancel();
+                throw new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND);
+            }
+        });
+    }
+
+    private static long lastEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return 0L;
+        }
         try {
-            return ResponseEntity.ok(
-                    repository.findById(questionId)
-                            .map(question -> QuestionsResponse.builder()
-                                    .author(question.getAuthor())
-                                    .id(question.getId())
-                                    .message(question.getMessage())
-                                    .replies(question.getReplies()
-                                            .stream()
-                                            .map(entity ->
-                                                    ReplyDetails.builder()
-                                                            .author(entity.getAuthor())
-                                                            .message(entity.getMessage())
-                                                            .id(entity.getId())
-                                                            .build()
-                                            )
-                                            .collect(Collectors.toList())
-                                    )
-                                    .build())
-                            .orElseThrow(
-                                    () -> new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND)
-                            )
-            );
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException ex) {
+            throw new QuestionsException("Invalid input. Last-Event-ID is not valid.", ex, "ERROR018", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private QuestionsResponse readQuestion(Long questionId, long afterId, int pageSize) {
+        try {
+            if (readModel.isEnabled()) {
+                return Optional.ofNullable(readModel.findQuestion(questionId))
+                        .map(question -> questionsResponse(question.getId(), question.getAuthor(), question.getMessage(),
+                                question.getReplies(), readModel.findReplyPage(questionId, afterId, pageSize + 1), pageSize))
+                        .orElseThrow(
+                                () -> new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND)
+                        );
+            }
+            return store.findById(questionId)
+                    .map(question -> questionsResponse(question.getId(), question.getAuthor(), question.getMessage(),
+                            question.getReplyCount(), store.findReplyDetailsPage(questionId, afterId, pageSize + 1), pageSize))
+                    .orElseThrow(
+                            () -> new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND)
+                    );
         } catch (Exception ex) {
             throw new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND);
         }
     }
 
-    private void validateInputRequest(MessageQuestionReplyBody request) {
-        if (StringUtils.isEmpty(request.getAuthor())) {
-            throw new QuestionsException("Invalid input. Author cannot be empty or null.", null, "ERROR008", HttpStatus.UNPROCESSABLE_ENTITY);
+    /**
+     * Builds the response of a question from one more reply than the page size, the extra reply tells whether
+     * there is a next page.
+     */
+    private static QuestionsResponse questionsResponse(Long id, String author, String message, long totalReplies,
+                                                       List<ReplyDetails> replies, int pageSize) {
+        String nextCursor = null;
+        if (replies.size() > pageSize) {
+            replies = replies.subList(0, pageSize);
+            nextCursor = Cursors.encode(replies.get(pageSize - 1).getId());
         }
-        if (StringUtils.isEmpty(request.getMessage())) {
-            throw new QuestionsException("Invalid input. Message cannot be empty or null.", null, "ERROR009", HttpStatus.UNPROCESSABLE_ENTITY);
+        return QuestionsResponse.builder()
+                .author(author)
+                .id(id)
+                .message(message)
+                .replies(replies)
+                .totalReplies(totalReplies)
+                .nextRepliesCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Adds a new question or reply to the search index and the read model once it is committed.
+     */
+    private QuestionsEntity indexAfterCommit(QuestionsEntity entity) {
+        boolean reply = entity.getParentQuestionId() != null;
+        long questionId = reply ? entity.getParentQuestionId() : entity.getId();
+        afterCommit(() -> {
+            searchIndex.index(entity.getId(), questionId, entity.getMessage());
+            if (!readModel.isEnabled()) {
+                return;
+            }
+            if (reply) {
+                readModel.addReply(entity.getId(), questionId, entity.getAuthor(), entity.getMessage());
+            } else {
+                readModel.addQuestion(entity.getId(), entity.getAuthor(), entity.getMessage());
+            }
+        });
+        return entity;
+    }
+
+    /**
+     * Runs an action once the current transaction committed, so that concurrent readers cannot observe the
+     * action before the data it refers to. Runs the action immediately outside of a transaction.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int validateBatchSize(List<MessageQuestionReplyBody> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new QuestionsException("Invalid input. Batch must contain between 1 and " + MAX_BATCH_SIZE + " items.", null, "ERROR012", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return requests.size();
+    }
+
+    /**
+     * Validates every item of a batch and records the error of each invalid item in its result.
+     *
+     * @return indexes of the valid items, in request order.
+     */
+    private static List<Integer> validateBatchItems(List<MessageQuestionReplyBody> requests, BatchItemResult[] results) {
+        List<Integer> valid = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == null) {
+                results[i] = BatchItemResult.builder().index(i).errorCode("ERROR012").message("Invalid input. Item cannot be null.").build();
+                continue;
+            }
+            try {
+                RequestValidator.validate(requests.get(i));
+                valid.add(i);
+            } catch (QuestionsException ex) {
+                results[i] = BatchItemResult.builder().index(i).errorCode(ex.getErrorCode()).message(ex.getMessage()).build();
+            }
         }
+        return valid;
     }
 }
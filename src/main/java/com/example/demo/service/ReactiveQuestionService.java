@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.QuestionDetailsCache;
+import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.model.*;
+import com.example.demo.persistence.ReactiveQuestionsRepository;
+import com.example.demo.search.QuestionSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking implementation of the question endpoints for the reactive api, with the same validation, paging
+ * and error handling as {@link QuestionService}. Nothing blocks a request thread, the data access goes through
+ * {@link ReactiveQuestionsRepository}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveQuestionService {
+
+    private final ReactiveQuestionsRepository repository;
+    private final TransactionalOperator transactionalOperator;
+    private final QuestionDetailsCache cache;
+    private final QuestionSearchIndex searchIndex;
+
+    /**
+     * Reactive registerQuestion endpoint implementation, see {@link QuestionService#registerQuestion}.
+     *
+     * @param body question request body of type {@link MessageQuestionReplyBody}.
+     * @return questionDetails of type {@link QuestionDetails} of the new question Added.
+     */
+    public Mono<ResponseEntity<QuestionDetails>> registerQuestion(MessageQuestionReplyBody body) {
+        return Mono.fromRunnable(() -> RequestValidator.validate(body))
+                .then(repository.insert(body.getAuthor(), body.getMessage(), null)
+                        .onErrorMap(ex -> new QuestionsException("Exception occurred while saving Question to Database.", ex, "ERROR003", HttpStatus.UNPROCESSABLE_ENTITY)))
+                .doOnNext(id -> searchIndex.index(id, id, body.getMessage()))
+                .map(id -> ResponseEntity.ok(QuestionDetails.builder()
+                        .author(body.getAuthor())
+                        .id(id)
+                        .message(body.getMessage())
+                        .replies(0L)
+                        .build()));
+    }
+
+    /**
+     * Reactive messageReply endpoint implementation, see {@link QuestionService#messageReply}. The reply count is
+     * incremented, which tells whether the question exists, and the reply inserted in one transaction. The cache and
+     * the search index are updated after commit.
+     *
+     * @param questionId  input questionId for the reply is saved.
+     * @param requestBody reply request body of type {@link MessageQuestionReplyBody}.
+     * @return postReplyResponse of type {@link messageReplyResponse} of the new reply Added.
+     */
+    public Mono<ResponseEntity<messageReplyResponse>> messageReply(Long questionId, MessageQuestionReplyBody requestBody) {
+        Mono<Long> reply = repository.incrementReplyCount(questionId, 1)
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new QuestionsException("Question Not Found.", null, "ERROR002", HttpStatus.NOT_FOUND))
+                        : repository.insert(requestBody.getAuthor(), requestBody.getMessage(), questionId))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(ex -> !(ex instanceof QuestionsException),
+                        ex -> new QuestionsException("Reply Not Found. ", ex, "ERROR001", HttpStatus.NOT_FOUND));
+        return Mono.fromRunnable(() -> RequestValidator.validate(requestBody))
+                .then(reply)
+                .doOnNext(id -> {
+                    cache.invalidate(questionId);
+                    searchIndex.index(id, questionId, requestBody.getMessage());
+                })
+                .map(id -> ResponseEntity.ok(messageReplyResponse.builder()
+                        .author(requestBody.getAuthor())
+                        .id(id)
+                        .message(requestBody.getMessage())
+                        .questionId(questionId)
+                        .build()));
+    }
+
+    /**
+     * Reactive paginated getListOfQuestions endpoint implementation, see
+     * {@link QuestionService#getListOfQuestions(String, Integer)}.
+     *
+     * @param after opaque cursor returned by the previous page, null for the first page.
+     * @param limit maximum number of questions in the page.
+     * @return questionDetails of type {@link List<QuestionDetails>} with the cursor of the next page in the
+     * {@value QuestionService#NEXT_CURSOR_HEADER} header, the header is absent on the last page.
+     */
+    public Mono<ResponseEntity<List<QuestionDetails>>> getListOfQuestions(String after, Integer limit) {
+        return Mono.defer(() -> {
+            long afterId = Cursors.decode(after);
+            int pageSize = Cursors.pageSize(limit, QuestionService.DEFAULT_PAGE_SIZE, QuestionService.MAX_PAGE_SIZE);
+            return repository.findQuestionDetailsPage(afterId, pageSize + 1)  // one extra row tells whether there is a next page
+                    .collectList()
+                    .onErrorMap(ex -> new QuestionsException("Exception occurred while reading Questions from Database.", ex, "ERROR0034", HttpStatus.UNPROCESSABLE_ENTITY))
+                    .map(page -> {
+                        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                        if (page.size() > pageSize) {
+                            page = page.subList(0, pageSize);
+                            response.header(QuestionService.NEXT_CURSOR_HEADER, Cursors.encode(page.get(pageSize - 1).getId()));
+                        }
+                        return response.body(page);
+                    });
+        });
+    }
+
+    /**
+     * Reactive getQuestion endpoint implementation, see {@link QuestionService#getQuestion(Long, String, Integer)}.
+     *
+     * @param questionId   of the question for which the details are requested.
+     * @param repliesAfter opaque cursor returned as nextRepliesCursor by the previous page, null for the first page.
+     * @param repliesLimit maximum number of replies in the page.
+     * @return questionsResponse of type {@link QuestionsResponse} of the question requested with the total number of
+     * replies and the cursor of the next page of replies.
+     */
+    public Mono<ResponseEntity<QuestionsResponse>> getQuestion(Long questionId, String repliesAfter, Integer repliesLimit) {
+        return Mono.defer(() -> {
+            long afterId = Cursors.decode(repliesAfter);
+            int pageSize = Cursors.pageSize(repliesLimit, QuestionService.DEFAULT_REPLIES_PAGE_SIZE, QuestionService.MAX_PAGE_SIZE);
+            return repository.findQuestionDetails(questionId)
+                    .switchIfEmpty(Mono.error(new QuestionsException("Question Not Found.", null, "ERROR006", HttpStatus.NOT_FOUND)))
+                    .zipWith(repository.findReplyDetailsPage(questionId, afterId, pageSize + 1).collectList(),
+                            (question, replies) -> {
+                                String nextCursor = null;
+                                if (replies.size() > pageSize) {
+                                    replies = replies.subList(0, pageSize);
+                                    nextCursor = Cursors.encode(replies.get(pageSize - 1).getId());
+                                }
+                                return QuestionsResponse.builder()
+                                        .author(question.getAuthor())
+                                        .id(question.getId())
+                                        .message(question.getMessage())
+                                        .replies(replies)
+                                        .totalReplies(question.getReplies())
+                                        .nextRepliesCursor(nextCursor)
+                                        .build();
+                            })
+                    .onErrorMap(ex -> new QuestionsException("Exception occurred while reading question details.", ex, "ERROR007", HttpStatus.NOT_FOUND))
+                    .map(ResponseEntity::ok);
+        });
+    }
+}
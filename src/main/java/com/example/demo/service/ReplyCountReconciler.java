@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import com.example.demo.persistence.QuestionStore;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Scheduled job which repairs the denormalized reply count of the questions against the actual replies.
+ * The count is maintained by {@link QuestionService#messageReply}, this job only fixes drift caused by
+ * writes done outside of the service.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplyCountReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplyCountReconciler.class);
+
+    private final QuestionStore store;
+
+    /**
+     * Recomputes the reply count of the questions which drifted.
+     *
+     * @return number of repaired questions.
+     */
+    @Transactional
+    @Scheduled(initialDelayString = "${questions.reply-count.reconcile-interval-ms:600000}",
+            fixedDelayString = "${questions.reply-count.reconcile-interval-ms:600000}")
+    public int reconcile() {
+        int repaired = store.reconcileReplyCounts();
+        if (repaired > 0) {
+            log.warn("Repaired reply count of {} questions", repaired);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.service;
+
+import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.model.MessageQuestionReplyBody;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+/**
+ * Validation rules of question and reply request bodies, shared by the blocking and the reactive api.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public final class RequestValidator {
+
+    private RequestValidator() {
+    }
+
+    /**
+     * Validates a question or reply request body.
+     *
+     * @param request question or reply request body of type {@link MessageQuestionReplyBody}.
+     * @throws QuestionsException if the author or the message is missing.
+     */
+    public static void validate(MessageQuestionReplyBody request) {
+        if (StringUtils.isEmpty(request.getAuthor())) {
+            throw new QuestionsException("Invalid input. Author cannot be empty or null.", null, "ERROR008", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (StringUtils.isEmpty(request.getMessage())) {
+            throw new QuestionsException("Invalid input. Message cannot be empty or null.", null, "ERROR009", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+    }
+}
@@ -2,12 +2,26 @@ package com.example.demo.api;
 
 
 import com.example.demo.exceptions.QuestionsErrorResponse;
+import com.example.demo.model.BatchItemResult;
 import com.example.demo.model.MessageQuestionReplyBody;
 import com.example.demo.model.messageReplyResponse;
 import com.example.demo.model.QuestionDetails;
 import com.example.demo.model.QuestionsResponse;
+import com.example.demo.persistence.QuestionIdSequenceInitializer;
 import com.example.demo.persistence.QuestionsEntity;
 import com.example.demo.persistence.QuestionsRepository;
+import com.example.demo.persistence.QuestionStore;
+import com.example.demo.persistence.StatementCounts;
+import com.example.demo.service.Cursors;
+import com.example.demo.service.JsonStreamingProperties;
+import com.example.demo.service.QuestionSearchService;
+import com.example.demo.service.QuestionService;
+import com.example.demo.service.ReplyCountReconciler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,9 +30,24 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -29,7 +58,10 @@ import static org.assertj.core.api.Assertions.assertThat;
  * @author Narasimha Reddy Guthireddy
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+                // closing a reply stream reads it to its end, the server ends it after this timeout
+                "questions.reply-feed.timeout=3s"})
 public class QuestionsControllerTest {
 
     @Autowired
@@ -37,7 +69,25 @@ public class QuestionsControllerTest {
     private HttpHeaders headers = new HttpHeaders();
     @Autowired
     private QuestionsRepository repository;
+    @Autowired
+    private QuestionStore store;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private QuestionIdSequenceInitializer sequenceInitializer;
     private QuestionsEntity sampleQuestion;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ReplyCountReconciler reconciler;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private QuestionService service;
+    @Autowired
+    private QueryBudgetProperties budget;
+    @Autowired
+    private JsonStreamingProperties jsonStreaming;
 
     /**
      * Initializes the test data before any tests are run.
@@ -46,7 +96,7 @@ public class QuestionsControllerTest {
     @Before
     public void init() {
         headers.setContentType(MediaType.APPLICATION_JSON);
-        sampleQuestion = repository.save(QuestionsEntity.builder()
+        sampleQuestion = store.save(QuestionsEntity.builder()
                 .message("test message")
                 .author("test user")
                 .build());
@@ -73,6 +123,41 @@ public class QuestionsControllerTest {
         assertThat(response.getBody().getAuthor()).isEqualTo("Narasimha");
     }
 
+    /**
+     * Creates several questions in a row.
+     *
+     * @result Ids come from a pre-allocated block, an insert does not need its own sequence round trip.
+     */
+    @Test
+    public void registerQuestion_whenSeveralQuestionsAreCreated_IdsAreAllocatedInBlocks() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            repository.save(QuestionsEntity.builder().message("message " + i).author("test user").build());
+        }
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(11);
+    }
+
+    /**
+     * Starts on a database holding a question id the sequence has not reached, the way ids taken from
+     * hibernate_sequence before questions_seq existed are.
+     *
+     * @result the sequence is advanced, the next block of ids starts after the existing id.
+     */
+    @Test
+    public void sequenceInitializer_whenIdsAreAheadOfSequence_AdvancesSequencePastThem() {
+        long legacyId = jdbcTemplate.queryForObject("select max(id) from questions_entity", Long.class) + 10_000;
+        jdbcTemplate.update("insert into questions_entity (id, author, message, reply_count, version)"
+                + " values (?, 'legacy', 'legacy question', 0, 0)", legacyId);
+        try {
+            sequenceInitializer.afterSingletonsInstantiated();
+            long blockLast = jdbcTemplate.queryForObject("select next value for questions_seq", Long.class);
+            assertThat(blockLast - 49).isGreaterThan(legacyId);  // a sequence value ends a block of 50 ids
+        } finally {
+            jdbcTemplate.update("delete from questions_entity where id = ?", legacyId);
+        }
+    }
+
     /**
      * Exception occurs while creating the new question.
      *
@@ -116,6 +201,60 @@ public class QuestionsControllerTest {
         assertThat(response.getBody().getQuestionId()).isEqualTo(sampleQuestion.getId());
     }
 
+    /**
+     * Creates several questions and replies with the bulk endpoints.
+     *
+     * @result All items are created, their ids are returned in request order and counted as replies of the question.
+     */
+    @Test
+    public void batch_whenInputIsValid_ReturnsAllItemsCreated() {
+        List<MessageQuestionReplyBody> bodies = Arrays.asList(
+                MessageQuestionReplyBody.builder().message("first").author("Narasimha").build(),
+                MessageQuestionReplyBody.builder().message("second").author("Narasimha").build());
+        ResponseEntity<List<BatchItemResult>> questions = restTemplate.exchange(
+                "/questions:batch",
+                HttpMethod.POST, new HttpEntity<>(bodies, headers), new ParameterizedTypeReference<List<BatchItemResult>>() {
+                });
+        assertThat(questions.getStatusCode().value()).isEqualTo(200);
+        assertThat(questions.getBody().size()).isEqualTo(2);
+        assertThat(questions.getBody().get(1).getIndex()).isEqualTo(1);
+        assertThat(questions.getBody().get(1).getErrorCode()).isNull();
+        assertThat(repository.findById(questions.getBody().get(1).getId()).get().getMessage()).isEqualTo("second");
+
+        Long questionId = questions.getBody().get(0).getId();
+        ResponseEntity<List<BatchItemResult>> replies = restTemplate.exchange(
+                "/questions/" + questionId + "/replies:batch",
+                HttpMethod.POST, new HttpEntity<>(bodies, headers), new ParameterizedTypeReference<List<BatchItemResult>>() {
+                });
+        assertThat(replies.getStatusCode().value()).isEqualTo(200);
+        assertThat(replies.getBody().size()).isEqualTo(2);
+        assertThat(repository.findById(replies.getBody().get(0).getId()).get().getParentQuestionId()).isEqualTo(questionId);
+        assertThat(repository.findById(questionId).get().getReplyCount()).isEqualTo(2);
+    }
+
+    /**
+     * Bulk create with one invalid item.
+     *
+     * @result The invalid item is reported with its validation error, the valid item is created.
+     */
+    @Test
+    public void batch_whenAnItemIsInvalid_ReturnsItsErrorAndCreatesTheOthers() {
+        long countBefore = repository.count();
+        List<MessageQuestionReplyBody> bodies = Arrays.asList(
+                MessageQuestionReplyBody.builder().message("first").author("Narasimha").build(),
+                MessageQuestionReplyBody.builder().message("second").author("").build());
+        ResponseEntity<List<BatchItemResult>> response = restTemplate.exchange(
+                "/questions:batch",
+                HttpMethod.POST, new HttpEntity<>(bodies, headers), new ParameterizedTypeReference<List<BatchItemResult>>() {
+                });
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody().get(0).getId()).isNotNull();
+        assertThat(response.getBody().get(1).getId()).isNull();
+        assertThat(response.getBody().get(1).getErrorCode()).isEqualTo("ERROR008");
+        assertThat(response.getBody().get(1).getMessage()).contains("Author");
+        assertThat(repository.count()).isEqualTo(countBefore + 1);
+    }
+
     /**
      * Tests exception scenario for createReply endpoint.
      * Input data has a validation error.
@@ -157,6 +296,156 @@ public class QuestionsControllerTest {
         assertThat(response.getBody().get(0)).isNotNull();
     }
 
+    /**
+     * Pages through the questions with the cursor returned by the previous page.
+     *
+     * @result Each page honours the limit and the next page continues after the previous one.
+     */
+    @Test
+    public void getListOfQuestions_whenPaged_ReturnsPagesInIdOrder() {
+        store.save(QuestionsEntity.builder().message("another message").author("test user").build());
+        HttpEntity<?> entity = new HttpEntity<>(null,
+                headers);
+        ResponseEntity<List<QuestionDetails>> first = restTemplate.exchange(
+                "/questions?limit=1",
+                HttpMethod.GET, entity, new ParameterizedTypeReference<List<QuestionDetails>>() {
+                });
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(first.getBody().size()).isEqualTo(1);
+        String cursor = first.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER);
+        assertThat(cursor).isNotEmpty();
+
+        ResponseEntity<List<QuestionDetails>> second = restTemplate.exchange(
+                "/questions?limit=1&after=" + cursor,
+                HttpMethod.GET, entity, new ParameterizedTypeReference<List<QuestionDetails>>() {
+                });
+        assertThat(second.getStatusCode().value()).isEqualTo(200);
+        assertThat(second.getBody().size()).isEqualTo(1);
+        assertThat(second.getBody().get(0).getId()).isGreaterThan(first.getBody().get(0).getId());
+    }
+
+    /**
+     * Reads the question listing before and after more questions with replies are added.
+     *
+     * @result The listing costs a single SQL statement however many questions and replies it returns.
+     */
+    @Test
+    public void getListOfQuestions_whenMoreQuestionsAreAdded_StatementCountStaysConstant() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        HttpEntity<?> entity = new HttpEntity<>(null,
+                headers);
+        statistics.clear();
+        restTemplate.exchange("/questions?limit=500", HttpMethod.GET, entity, String.class);
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            QuestionsEntity question = store.save(QuestionsEntity.builder().message("message " + i).author("test user").build());
+            repository.save(QuestionsEntity.builder().message("reply " + i).author("test user")
+                    .parentQuestionId(question.getId()).build());
+        }
+        statistics.clear();
+        restTemplate.exchange("/questions?limit=500", HttpMethod.GET, entity, String.class);
+
+        assertThat(statementsBefore).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore);
+    }
+
+    /**
+     * Many clients reply to the same question at the same time.
+     *
+     * @result The reply count of the question matches the number of replies, no increment is lost.
+     */
+    @Test
+    public void messageReply_whenRepliedConcurrently_KeepsReplyCountExact() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            calls.add(() -> restTemplate.exchange(
+                    "/questions/" + sampleQuestion.getId() + "/reply",
+                    HttpMethod.POST, new HttpEntity<>(MessageQuestionReplyBody.builder()
+                            .message("concurrent reply")
+                            .author("Narasimha")
+                            .build(), headers), messageReplyResponse.class).getStatusCode().value());
+        }
+        for (Future<Integer> status : executor.invokeAll(calls)) {
+            assertThat(status.get()).isEqualTo(200);
+        }
+        executor.shutdown();
+
+        assertThat(repository.findById(sampleQuestion.getId()).get().getReplyCount()).isEqualTo(40);
+    }
+
+    /**
+     * Reply count of a question drifts from its actual replies.
+     *
+     * @result The reconciliation job repairs the count.
+     */
+    @Test
+    public void reconcile_whenReplyCountDrifted_RepairsReplyCount() {
+        repository.save(QuestionsEntity.builder().message("reply").author("test user")
+                .parentQuestionId(sampleQuestion.getId()).build());
+        assertThat(reconciler.reconcile()).isGreaterThanOrEqualTo(1);
+        assertThat(repository.findById(sampleQuestion.getId()).get().getReplyCount()).isEqualTo(1);
+    }
+
+    /**
+     * A question is written directly to the questions table, bypassing its summary.
+     *
+     * @result The question is not listed until the reconciliation job creates its summary, the listing then shows
+     * the repaired reply count of the question.
+     */
+    @Test
+    public void reconcile_whenSummaryIsMissing_CreatesSummary() {
+        QuestionsEntity question = repository.save(QuestionsEntity.builder().message("unlisted").author("test user").build());
+        repository.save(QuestionsEntity.builder().message("reply").author("test user")
+                .parentQuestionId(question.getId()).build());
+        assertThat(service.getListOfQuestions().getBody()).noneMatch(details -> details.getId().equals(question.getId()));
+
+        reconciler.reconcile();
+
+        assertThat(service.getListOfQuestions().getBody())
+                .filteredOn(details -> details.getId().equals(question.getId()))
+                .extracting(QuestionDetails::getReplies)
+                .containsExactly(1L);
+    }
+
+    /**
+     * Requests an invalid cursor.
+     *
+     * @result Response contains a validation error.
+     */
+    @Test
+    public void getListOfQuestions_whenCursorIsInvalid_ReturnsErrorResponse() {
+        HttpEntity<?> entity = new HttpEntity<>(null,
+                headers);
+        ResponseEntity<QuestionsErrorResponse> response = restTemplate.exchange(
+                "/questions?after=invalid",
+                HttpMethod.GET, entity, QuestionsErrorResponse.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(response.getBody().getErrorCode()).isEqualTo("ERROR010");
+    }
+
+    /**
+     * Exports all questions as newline-delimited JSON.
+     *
+     * @result Response has one parsable question per line for every question in the database, with nothing before it.
+     */
+    @Test
+    public void exportQuestions_whenCalled_StreamsOneQuestionPerLine() throws Exception {
+        store.save(QuestionsEntity.builder().message("second message").author("test user").build());
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/questions:export",
+                HttpMethod.GET, new HttpEntity<>(null, headers), String.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("application/x-ndjson");
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines.length).isEqualTo(repository.findAllQuestionDetails().size());
+        for (String line : lines) {
+            assertThat(line).startsWith("{");
+            assertThat(objectMapper.readValue(line, QuestionDetails.class).getId()).isNotNull();
+        }
+    }
+
     /**
      * Request to get input question details. Input takes existing questionId.
      *
@@ -175,4 +464,451 @@ public class QuestionsControllerTest {
         assertThat(response.getBody().getId()).isEqualTo(sampleQuestion.getId());
         assertThat(response.getBody().getMessage()).isEqualTo(sampleQuestion.getMessage());
     }
+
+    /**
+     * Pages through the replies of a question with the cursor returned by the previous page.
+     *
+     * @result Each page honours the limit and exposes the total number of replies.
+     */
+    @Test
+    public void getQuestion_whenRepliesArePaged_ReturnsPagesOfReplies() {
+        for (int i = 0; i < 3; i++) {
+            restTemplate.exchange("/questions/" + sampleQuestion.getId() + "/reply", HttpMethod.POST,
+                    new HttpEntity<>(MessageQuestionReplyBody.builder().message("reply " + i).author("Narasimha").build(), headers),
+                    messageReplyResponse.class);
+        }
+        HttpEntity<?> entity = new HttpEntity<>(null,
+                headers);
+        ResponseEntity<QuestionsResponse> first = restTemplate.exchange(
+                "/questions/" + sampleQuestion.getId() + "?repliesLimit=2",
+                HttpMethod.GET, entity, QuestionsResponse.class);
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(first.getBody().getReplies().size()).isEqualTo(2);
+        assertThat(first.getBody().getTotalReplies()).isEqualTo(3);
+        assertThat(first.getBody().getNextRepliesCursor()).isNotEmpty();
+
+        ResponseEntity<QuestionsResponse> second = restTemplate.exchange(
+                "/questions/" + sampleQuestion.getId() + "?repliesLimit=2&repliesAfter=" + first.getBody().getNextRepliesCursor(),
+                HttpMethod.GET, entity, QuestionsResponse.class);
+        assertThat(second.getBody().getReplies().size()).isEqualTo(1);
+        assertThat(second.getBody().getReplies().get(0).getMessage()).isEqualTo("reply 2");
+        assertThat(second.getBody().getNextRepliesCursor()).isNull();
+    }
+
+    /**
+     * Re-polls a question with the entity tag of the previous response, before and after a reply is added.
+     *
+     * @result 304 Not Modified while the question is unchanged, a new entity tag once it got a reply.
+     */
+    @Test
+    public void getQuestion_whenEtagMatches_ReturnsNotModified() {
+        String url = "/questions/" + sampleQuestion.getId();
+        ResponseEntity<QuestionsResponse> first = restTemplate.exchange(
+                url, HttpMethod.GET, new HttpEntity<>(null, headers), QuestionsResponse.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotEmpty();
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setContentType(MediaType.APPLICATION_JSON);
+        conditional.setIfNoneMatch(etag);
+        ResponseEntity<String> notModified = restTemplate.exchange(
+                url, HttpMethod.GET, new HttpEntity<>(null, conditional), String.class);
+        assertThat(notModified.getStatusCode().value()).isEqualTo(304);
+        assertThat(notModified.getBody()).isNull();
+
+        restTemplate.exchange(url + "/reply", HttpMethod.POST,
+                new HttpEntity<>(MessageQuestionReplyBody.builder().message("reply").author("Narasimha").build(), headers),
+                messageReplyResponse.class);
+        ResponseEntity<QuestionsResponse> modified = restTemplate.exchange(
+                url, HttpMethod.GET, new HttpEntity<>(null, conditional), QuestionsResponse.class);
+        assertThat(modified.getStatusCode().value()).isEqualTo(200);
+        assertThat(modified.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(modified.getBody().getTotalReplies()).isEqualTo(1);
+    }
+
+    /**
+     * Re-polls a page of the question listing with the entity tag of the previous response.
+     *
+     * @result 304 Not Modified while the page is unchanged, 200 once a question of the page got a reply.
+     */
+    @Test
+    public void getListOfQuestions_whenEtagMatches_ReturnsNotModified() {
+        String url = "/questions?limit=500";
+        String etag = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, headers), String.class)
+                .getHeaders().getETag();
+        assertThat(etag).isNotEmpty();
+
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setContentType(MediaType.APPLICATION_JSON);
+        conditional.setIfNoneMatch(etag);
+        assertThat(restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, conditional), String.class)
+                .getStatusCode().value()).isEqualTo(304);
+
+        restTemplate.exchange("/questions/" + sampleQuestion.getId() + "/reply", HttpMethod.POST,
+                new HttpEntity<>(MessageQuestionReplyBody.builder().message("reply").author("Narasimha").build(), headers),
+                messageReplyResponse.class);
+        assertThat(restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, conditional), String.class)
+                .getStatusCode().value()).isEqualTo(200);
+    }
+
+    /**
+     * Re-polls a full last page of the question listing with the entity tag of the previous response, after a
+     * question is added past the end of the page.
+     *
+     * @result 200 with the next cursor, although the questions of the page are unchanged, in both the DTO and the
+     * streamed JSON responses.
+     */
+    @Test
+    public void getListOfQuestions_whenQuestionIsAppendedToFullLastPage_ReturnsNextCursor() {
+        for (boolean streamed : new boolean[]{false, true}) {
+            QuestionDetails first = restTemplate.exchange("/questions", HttpMethod.POST,
+                    new HttpEntity<>(MessageQuestionReplyBody.builder().message("first of page").author("Narasimha").build(), headers),
+                    QuestionDetails.class).getBody();
+            restTemplate.exchange("/questions", HttpMethod.POST,
+                    new HttpEntity<>(MessageQuestionReplyBody.builder().message("last of page").author("Narasimha").build(), headers),
+                    QuestionDetails.class);
+            String url = "/questions?limit=2&after=" + Cursors.encode(first.getId() - 1);
+            jsonStreaming.setEnabled(streamed);
+            try {
+                ResponseEntity<String> full = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, headers), String.class);
+                assertThat(full.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER)).isNull();
+
+                restTemplate.exchange("/questions", HttpMethod.POST,
+                        new HttpEntity<>(MessageQuestionReplyBody.builder().message("appended").author("Narasimha").build(), headers),
+                        QuestionDetails.class);
+                HttpHeaders conditional = new HttpHeaders();
+                conditional.setContentType(MediaType.APPLICATION_JSON);
+                conditional.setIfNoneMatch(full.getHeaders().getETag());
+                ResponseEntity<String> next = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, conditional), String.class);
+                assertThat(next.getStatusCode().value()).isEqualTo(200);
+                assertThat(next.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER)).isNotNull();
+            } finally {
+                jsonStreaming.setEnabled(false);
+            }
+        }
+    }
+
+    /**
+     * Searches for terms of a new question and of a new reply.
+     *
+     * @result the question is found by its own message and by the message of its reply.
+     */
+    @Test
+    public void searchQuestions_whenTermsMatch_ReturnsMatchingQuestions() {
+        ResponseEntity<QuestionDetails> question = restTemplate.exchange("/questions", HttpMethod.POST,
+                new HttpEntity<>(MessageQuestionReplyBody.builder().message("zebra crossing rules").author("Narasimha").build(), headers),
+                QuestionDetails.class);
+        restTemplate.exchange("/questions/" + question.getBody().getId() + "/reply", HttpMethod.POST,
+                new HttpEntity<>(MessageQuestionReplyBody.builder().message("look at the xylophone").author("Narasimha").build(), headers),
+                messageReplyResponse.class);
+
+        for (String query : Arrays.asList("zebra", "XYLOPHONE")) {
+            ResponseEntity<List<QuestionDetails>> response = restTemplate.exchange(
+                    "/questions/search?q=" + query,
+                    HttpMethod.GET, new HttpEntity<>(null, headers), new ParameterizedTypeReference<List<QuestionDetails>>() {
+                    });
+            assertThat(response.getStatusCode().value()).isEqualTo(200);
+            assertThat(response.getBody()).extracting(QuestionDetails::getId).contains(question.getBody().getId());
+            assertThat(response.getHeaders().getFirst(QuestionSearchService.TOTAL_COUNT_HEADER)).isNotEmpty();
+        }
+    }
+
+    /**
+     * Reads a question and a question which does not exist, then scrapes the metrics endpoint.
+     *
+     * @result Service and repository timers are published with their percentiles and the error is counted by code.
+     */
+    @Test
+    public void metrics_whenEndpointsAreCalled_ArePublishedForPrometheus() {
+        restTemplate.exchange("/questions/" + sampleQuestion.getId() + "?repliesLimit=10",
+                HttpMethod.GET, new HttpEntity<>(null, headers), QuestionsResponse.class);
+        restTemplate.exchange("/questions/" + Long.MAX_VALUE,
+                HttpMethod.GET, new HttpEntity<>(null, headers), QuestionsErrorResponse.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody())
+                .contains("questions_service_seconds{errorCode=\"none\",method=\"getQuestion\",outcome=\"SUCCESS\",quantile=\"0.99\",}")
+                .contains("questions_service_seconds_bucket{errorCode=\"none\",method=\"getQuestion\"")
+                .contains("questions_repository_seconds_count{errorCode=\"none\",method=\"findReplyDetailsPage\"")
+                .contains("questions_errors_total{errorCode=\"ERROR007\",status=\"404\",}")
+                .contains("http_server_requests_seconds{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/questions/{questionId}\",quantile=\"0.999\",}")
+                .contains("questions_cache_gets_total{result=\"hit\",}");
+    }
+
+    /**
+     * Reads the question listing and the details of a question through the service.
+     *
+     * @result Each read prepares exactly the expected SQL statements, no lazy association is loaded.
+     */
+    @Test
+    public void reads_whenCalled_PrepareExactStatementCounts() {
+        for (int i = 0; i < 3; i++) {
+            repository.save(QuestionsEntity.builder().message("reply " + i).author("test user")
+                    .parentQuestionId(sampleQuestion.getId()).build());
+        }
+        List<QuestionDetails> page = StatementCounts.assertStatements(1, () -> service.getListOfQuestions(null, 10).getBody());
+        StatementCounts.assertStatements(0, () -> service.getListOfQuestionsEtag(null, 10, page, false));
+        StatementCounts.assertStatements(1, () -> service.getQuestionEtag(sampleQuestion.getId(), null, null));
+        QuestionsResponse details = StatementCounts.assertStatements(2,
+                () -> service.getQuestion(sampleQuestion.getId(), null, 10).getBody());  // question and replies page
+        assertThat(details.getReplies()).hasSize(3);
+    }
+
+    /**
+     * Reads a page of the listing and a question with a page of its replies, through the DTOs and written
+     * directly from the rows.
+     *
+     * @result Both ways answer the same bytes, content type and next cursor.
+     */
+    @Test
+    public void jsonStreaming_whenEnabled_ReturnsSameResponses() {
+        store.save(QuestionsEntity.builder().message("another message").author("test user").build());
+        for (int i = 0; i < 2; i++) {
+            service.messageReply(sampleQuestion.getId(),
+                    MessageQuestionReplyBody.builder().message("reply \"" + i + "\" ☃").author("Narasimha").build());
+        }
+        HttpEntity<?> entity = new HttpEntity<>(null, headers);
+        for (String url : Arrays.asList("/questions?limit=1",
+                "/questions/" + sampleQuestion.getId() + "?repliesLimit=1")) {
+            ResponseEntity<String> dto = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+            ResponseEntity<String> streamed;
+            jsonStreaming.setEnabled(true);
+            try {
+                streamed = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+            } finally {
+                jsonStreaming.setEnabled(false);
+            }
+            assertThat(streamed.getStatusCode().value()).isEqualTo(200);
+            assertThat(streamed.getBody()).isEqualTo(dto.getBody());
+            assertThat(streamed.getHeaders().getContentType()).isEqualTo(dto.getHeaders().getContentType());
+            assertThat(streamed.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER))
+                    .isEqualTo(dto.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER));
+        }
+    }
+
+    /**
+     * Opens the reply stream of a question with the id of its first reply as Last-Event-ID, then replies again.
+     *
+     * @result the stream first sends the missed second reply, then the new reply once it is committed.
+     */
+    @Test
+    public void streamReplies_whenResumed_SendsMissedThenNewReplies() {
+        messageReplyResponse first = postReply("first reply");
+        messageReplyResponse missed = postReply("missed reply");
+
+        List<messageReplyResponse> events = restTemplate.execute(
+                "/questions/" + sampleQuestion.getId() + "/replies/stream", HttpMethod.GET,
+                request -> request.getHeaders().set("Last-Event-ID", Long.toString(replyNumber(first.getId()))),
+                response -> {
+                    assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_EVENT_STREAM)).isTrue();
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                    List<messageReplyResponse> received = new ArrayList<>();
+                    received.add(readReplyEvent(reader));
+                    postReply("live reply");
+                    received.add(readReplyEvent(reader));
+                    return received;
+                });
+
+        assertThat(events.get(0).getId()).isEqualTo(missed.getId());
+        assertThat(events.get(1).getMessage()).isEqualTo("live reply");
+        assertThat(events.get(1).getQuestionId()).isEqualTo(sampleQuestion.getId());
+    }
+
+    /**
+     * Resumes the reply stream of a question after a reply with a lower id than the last one seen is committed, the
+     * way a reply from another instance whose block of ids is older is.
+     *
+     * @result the late reply is replayed, it is numbered after the last reply seen.
+     */
+    @Test
+    public void streamReplies_whenLowerIdIsCommittedLater_ReplaysIt() {
+        messageReplyResponse seen = postReply("seen reply");
+        long lowerId = jdbcTemplate.queryForObject("select min(id) - 1 from questions_entity", Long.class);
+        jdbcTemplate.update("update questions_entity set reply_count = reply_count + 1, version = version + 1"
+                + " where id = ?", sampleQuestion.getId());
+        jdbcTemplate.update("insert into questions_entity (id, author, message, parent_question_id, reply_count,"
+                + " version, reply_number) select ?, 'other instance', 'late reply', id, 0, 0, version"
+                + " from questions_entity where id = ?", lowerId, sampleQuestion.getId());
+
+        messageReplyResponse replayed = restTemplate.execute(
+                "/questions/" + sampleQuestion.getId() + "/replies/stream", HttpMethod.GET,
+                request -> request.getHeaders().set("Last-Event-ID", Long.toString(replyNumber(seen.getId()))),
+                response -> readReplyEvent(new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))));
+
+        assertThat(replayed.getId()).isEqualTo(lowerId).isLessThan(seen.getId());
+        assertThat(replayed.getMessage()).isEqualTo("late reply");
+    }
+
+    /**
+     * Opens the reply stream of a question which does not exist.
+     *
+     * @result 404 is returned with the error code of a missing question.
+     */
+    @Test
+    public void streamReplies_whenQuestionIsMissing_ReturnsNotFound() {
+        ResponseEntity<QuestionsErrorResponse> response = restTemplate.exchange("/questions/" + Long.MAX_VALUE + "/replies/stream",
+                HttpMethod.GET, new HttpEntity<>(null, headers), QuestionsErrorResponse.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(404);
+        assertThat(response.getBody().getErrorCode()).isEqualTo("ERROR006");
+    }
+
+    /**
+     * Opens more reply streams than the 10 connections of the database pool, then lists the questions while they
+     * are all open.
+     *
+     * @result the listing is served, the open streams hold no database connection.
+     */
+    @Test
+    public void streamReplies_whenMoreStreamsThanConnections_ServesOtherRequests() throws Exception {
+        messageReplyResponse reply = postReply("streamed reply");
+        List<HttpURLConnection> streams = new ArrayList<>();
+        List<BufferedReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 12; i++) {
+                HttpURLConnection stream = (HttpURLConnection) new URL(restTemplate.getRootUri()
+                        + "/questions/" + sampleQuestion.getId() + "/replies/stream").openConnection();
+                stream.setRequestProperty("Last-Event-ID", "0");
+                streams.add(stream);
+                assertThat(stream.getResponseCode()).isEqualTo(200);
+                readers.add(new BufferedReader(new InputStreamReader(stream.getInputStream(), StandardCharsets.UTF_8)));
+                assertThat(readReplyEvent(readers.get(i)).getId()).isEqualTo(reply.getId());
+            }
+            ResponseEntity<String> response = restTemplate.exchange("/questions", HttpMethod.GET,
+                    new HttpEntity<>(null, headers), String.class);
+            assertThat(response.getStatusCode().value()).isEqualTo(200);
+            // the listing did not wait for streams to end: they are all still open
+            postReply("live reply");
+            for (BufferedReader reader : readers) {
+                assertThat(readReplyEvent(reader).getMessage()).isEqualTo("live reply");
+            }
+        } finally {
+            streams.forEach(HttpURLConnection::disconnect);
+        }
+    }
+
+    private messageReplyResponse postReply(String message) {
+        return restTemplate.exchange("/questions/" + sampleQuestion.getId() + "/reply", HttpMethod.POST,
+                new HttpEntity<>(MessageQuestionReplyBody.builder().message(message).author("Narasimha").build(), headers),
+                messageReplyResponse.class).getBody();
+    }
+
+    private long replyNumber(long replyId) {
+        return jdbcTemplate.queryForObject("select reply_number from questions_entity where id = ?", Long.class, replyId);
+    }
+
+    private messageReplyResponse readReplyEvent(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) {
+                return objectMapper.readValue(line.substring("data:".length()), messageReplyResponse.class);
+            }
+        }
+        throw new IOException("Stream ended before a reply event.");
+    }
+
+    /**
+     * Reads a question and the question listing with an Accept header which is not a valid media type, with and
+     * without the streamed JSON responses.
+     *
+     * @result 406 Not Acceptable instead of a server error.
+     */
+    @Test
+    public void getQuestion_whenAcceptHeaderIsMalformed_ReturnsNotAcceptable() {
+        HttpHeaders malformed = new HttpHeaders();
+        malformed.setContentType(MediaType.APPLICATION_JSON);
+        malformed.set(HttpHeaders.ACCEPT, "application/json;q=");
+        for (boolean streamed : new boolean[]{false, true}) {
+            jsonStreaming.setEnabled(streamed);
+            try {
+                for (String url : Arrays.asList("/questions/" + sampleQuestion.getId(), "/questions")) {
+                    ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET,
+                            new HttpEntity<>(null, malformed), String.class);
+                    assertThat(response.getStatusCode().value()).as(url).isEqualTo(406);
+                }
+            } finally {
+                jsonStreaming.setEnabled(false);
+            }
+        }
+    }
+
+    /**
+     * Creates a question and reads it back as CBOR, then reads it as JSON.
+     *
+     * @result The CBOR bodies carry the same values as the JSON body, in fewer bytes, with their own entity tag.
+     */
+    @Test
+    public void cbor_whenRequested_ExchangesCborBodies() throws Exception {
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        HttpHeaders cborHeaders = new HttpHeaders();
+        cborHeaders.setContentType(MediaType.APPLICATION_CBOR);
+        cborHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_CBOR));
+        byte[] body = cbor.writeValueAsBytes(MessageQuestionReplyBody.builder().message("cbor message").author("Narasimha").build());
+
+        ResponseEntity<byte[]> created = restTemplate.exchange("/questions", HttpMethod.POST,
+                new HttpEntity<>(body, cborHeaders), byte[].class);
+        assertThat(created.getStatusCode().value()).isEqualTo(200);
+        assertThat(created.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        JsonNode question = cbor.readTree(created.getBody());
+        assertThat(question.get("message").asText()).isEqualTo("cbor message");
+
+        String url = "/questions/" + question.get("id").asLong();
+        ResponseEntity<byte[]> cborDetails = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(null, cborHeaders), byte[].class);
+        ResponseEntity<byte[]> jsonDetails = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(null, headers), byte[].class);
+        assertThat(cbor.readTree(cborDetails.getBody())).isEqualTo(objectMapper.readTree(jsonDetails.getBody()));
+        assertThat(cborDetails.getBody().length).isLessThan(jsonDetails.getBody().length);
+
+        assertThat(cborDetails.getHeaders().getETag()).isNotEqualTo(jsonDetails.getHeaders().getETag());
+        cborHeaders.setIfNoneMatch(jsonDetails.getHeaders().getETag());
+        ResponseEntity<byte[]> conditional = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(null, cborHeaders), byte[].class);
+        assertThat(conditional.getStatusCode().value()).isEqualTo(200);
+    }
+
+    /**
+     * Reads a question with a rejecting budget too small for the endpoint.
+     *
+     * @result The request fails with ERROR016 before the statement beyond the budget runs.
+     */
+    @Test
+    public void getQuestion_whenRejectingBudgetIsExceeded_ReturnsErrorResponse() {
+        QueryBudgetProperties.Mode mode = budget.getMode();
+        Integer endpointBudget = budget.getEndpoints().get("getQuestionDetails");
+        budget.setMode(QueryBudgetProperties.Mode.REJECT);
+        budget.getEndpoints().put("getQuestionDetails", 1);
+        try {
+            ResponseEntity<QuestionsErrorResponse> response = restTemplate.exchange(
+                    "/questions/" + sampleQuestion.getId() + "?repliesLimit=10",
+                    HttpMethod.GET, new HttpEntity<>(null, headers), QuestionsErrorResponse.class);
+            assertThat(response.getStatusCode().value()).isEqualTo(500);
+            assertThat(response.getBody().getErrorCode()).isEqualTo("ERROR016");
+        } finally {
+            budget.setMode(mode);
+            budget.getEndpoints().put("getQuestionDetails", endpointBudget);
+        }
+    }
+
+    /**
+     * Replies to an existing question and to a question which does not exist.
+     *
+     * @result The reply is saved without loading the question, a missing question is reported as ERROR002.
+     */
+    @Test
+    public void messageReply_whenQuestionIsMissing_ReturnsQuestionNotFound() {
+        int statements = StatementCounts.count(() -> service.messageReply(sampleQuestion.getId(),
+                MessageQuestionReplyBody.builder().message("reply").author("Narasimha").build()));
+        assertThat(statements).isLessThanOrEqualTo(4);  // count and summary updates and insert, plus a sequence call once per id block
+
+        long countBefore = repository.count();
+        ResponseEntity<QuestionsErrorResponse> response = restTemplate.exchange(
+                "/questions/" + Long.MAX_VALUE + "/reply",
+                HttpMethod.POST, new HttpEntity<>(MessageQuestionReplyBody.builder().message("reply").author("Narasimha").build(), headers),
+                QuestionsErrorResponse.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(404);
+        assertThat(response.getBody().getErrorCode()).isEqualTo("ERROR002");
+        assertThat(repository.count()).isEqualTo(countBefore);
+    }
 }
@@ -0,0 +1,131 @@
+package com.example.demo.api;
+
+import com.example.demo.exceptions.QuestionsErrorResponse;
+import com.example.demo.model.MessageQuestionReplyBody;
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.messageReplyResponse;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.QuestionsRepository;
+import com.example.demo.service.QuestionService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration Tests for the API endpoints defined in {@link ReactiveQuestionsController}
+ * served on WebFlux with the "reactive" profile. H2 DB is used as backend db.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveQuestionsControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private QuestionsRepository repository;
+
+    /**
+     * Creates a question and a reply and reads them back.
+     *
+     * @result The question is returned with its reply and reply count, ids do not collide with JPA allocated ids.
+     */
+    @Test
+    public void questionAndReply_whenInputIsValid_AreCreatedAndRead() {
+        QuestionsEntity jpaQuestion = repository.save(QuestionsEntity.builder().message("jpa").author("test user").build());
+        QuestionDetails question = webTestClient.post().uri("/questions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(MessageQuestionReplyBody.builder().message("reactive question").author("Narasimha").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(QuestionDetails.class).returnResult().getResponseBody();
+        assertThat(question.getId()).isNotEqualTo(jpaQuestion.getId());
+        assertThat(question.getReplies()).isEqualTo(0L);
+
+        messageReplyResponse reply = webTestClient.post().uri("/questions/" + question.getId() + "/reply")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(MessageQuestionReplyBody.builder().message("reactive reply").author("Narasimha").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(messageReplyResponse.class).returnResult().getResponseBody();
+        assertThat(reply.getQuestionId()).isEqualTo(question.getId());
+
+        QuestionsResponse details = webTestClient.get().uri("/questions/" + question.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(QuestionsResponse.class).returnResult().getResponseBody();
+        assertThat(details.getMessage()).isEqualTo("reactive question");
+        assertThat(details.getTotalReplies()).isEqualTo(1L);
+        assertThat(details.getReplies()).hasSize(1);
+        assertThat(details.getReplies().get(0).getId()).isEqualTo(reply.getId());
+        assertThat(repository.findById(question.getId()).get().getReplyCount()).isEqualTo(1L);
+    }
+
+    /**
+     * Reads the question listing one question at a time.
+     *
+     * @result Each page has one question and the cursor of the next page, the next page starts after it.
+     */
+    @Test
+    public void getListOfQuestions_whenLimitIsSmall_ReturnsPagesWithCursor() {
+        repository.save(QuestionsEntity.builder().message("first").author("test user").build());
+        repository.save(QuestionsEntity.builder().message("second").author("test user").build());
+        WebTestClient.ResponseSpec firstPage = webTestClient.get().uri("/questions?limit=1").exchange();
+        List<QuestionDetails> first = firstPage.expectStatus().isOk()
+                .expectBodyList(QuestionDetails.class).returnResult().getResponseBody();
+        String cursor = firstPage.returnResult(String.class).getResponseHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER);
+        assertThat(first).hasSize(1);
+        assertThat(cursor).isNotNull();
+
+        List<QuestionDetails> second = webTestClient.get().uri("/questions?limit=1&after=" + cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(QuestionDetails.class).returnResult().getResponseBody();
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).getId()).isGreaterThan(first.get(0).getId());
+    }
+
+    /**
+     * Creates a question with an empty author.
+     *
+     * @result Response contains the same validation error as the blocking api.
+     */
+    @Test
+    public void registerQuestion_whenInputAuthorIsEmpty_ReturnsErrorResponse() {
+        QuestionsErrorResponse response = webTestClient.post().uri("/questions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(MessageQuestionReplyBody.builder().message("test message").author("").build())
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody(QuestionsErrorResponse.class).returnResult().getResponseBody();
+        assertThat(response.getErrorCode()).isEqualTo("ERROR008");
+    }
+
+    /**
+     * Replies to a question which does not exist.
+     *
+     * @result Response is 404 and nothing is saved.
+     */
+    @Test
+    public void messageReply_whenQuestionDoesNotExist_ReturnsNotFound() {
+        long countBefore = repository.count();
+        webTestClient.post().uri("/questions/" + Long.MAX_VALUE + "/reply")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(MessageQuestionReplyBody.builder().message("test message").author("Narasimha").build())
+                .exchange()
+                .expectStatus().isNotFound();
+        assertThat(repository.count()).isEqualTo(countBefore);
+    }
+}
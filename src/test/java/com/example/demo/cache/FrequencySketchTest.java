@@ -0,0 +1,50 @@
+package com.example.demo.cache;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link FrequencySketch} which tests the estimates and their aging.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class FrequencySketchTest {
+
+    /**
+     * Counts the reads of a key, more reads than a counter holds.
+     *
+     * @result the estimate follows the reads up to the maximum, a key never read is estimated at zero.
+     */
+    @Test
+    public void frequency_whenIncremented_estimatesReads() {
+        FrequencySketch sketch = new FrequencySketch(1_000);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(42l);
+        }
+        assertThat(sketch.frequency(42l)).isEqualTo(5);
+        assertThat(sketch.frequency(7l)).isZero();
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(42l);
+        }
+        assertThat(sketch.frequency(42l)).isEqualTo(FrequencySketch.MAX_FREQUENCY);
+    }
+
+    /**
+     * Counts ten times the capacity of reads.
+     *
+     * @result all estimates are halved.
+     */
+    @Test
+    public void increment_whenSampleSizeIsReached_halvesEstimates() {
+        FrequencySketch sketch = new FrequencySketch(1);
+        for (int i = 0; i < 9; i++) {
+            sketch.increment(42l);
+        }
+        assertThat(sketch.frequency(42l)).isEqualTo(9);
+
+        sketch.increment(42l);
+        assertThat(sketch.frequency(42l)).isEqualTo(5);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.QuestionsResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link QuestionDetailsCache} which tests the eviction, admission, expiry and invalidation rules.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QuestionDetailsCacheTest {
+
+    private QuestionsCacheProperties properties;
+    private QuestionDetailsCache cache;
+    private AtomicInteger loads;
+    private Function<Long, QuestionsResponse> loader;
+
+    @Before
+    public void init() {
+        properties = new QuestionsCacheProperties();
+        properties.setMaximumSize(2);
+        cache = new QuestionDetailsCache(properties);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return QuestionsResponse.builder().id(id).build();
+        };
+    }
+
+    /**
+     * Reads more questions than the cache can hold.
+     *
+     * @result least recently used question is evicted and counted.
+     */
+    @Test
+    public void get_whenMaximumSizeIsExceeded_evictsLeastRecentlyUsed() {
+        cache.get(1l, loader);
+        cache.get(2l, loader);
+        cache.get(1l, loader);
+        cache.get(3l, loader);
+        cache.get(1l, loader);
+        cache.get(2l, loader);
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(cache.stats().getHits()).isEqualTo(2);
+        assertThat(cache.stats().getMisses()).isEqualTo(4);
+        assertThat(cache.stats().getEvictions()).isEqualTo(2);
+    }
+
+    /**
+     * Reads a question often while the cache is full, then reads another question once.
+     *
+     * @result the question read often replaces the least recently used one, the question read once is not cached.
+     */
+    @Test
+    public void get_whenCandidateIsReadMoreOften_replacesLeastRecentlyUsed() {
+        cache.get(1l, loader);
+        cache.get(2l, loader);
+        cache.get(3l, loader);
+        cache.get(3l, loader);
+        cache.get(3l, loader);
+        cache.get(4l, loader);
+        cache.get(3l, loader);
+        cache.get(1l, loader);
+        assertThat(loads.get()).isEqualTo(5);
+        assertThat(cache.stats().getRejections()).isEqualTo(2);
+    }
+
+    /**
+     * Reads two questions several times, then scans many other questions once.
+     *
+     * @result the two questions stay cached, are pinned once read again and are listed as the hot questions.
+     */
+    @Test
+    public void get_whenScanFollowsHotQuestions_keepsHotQuestions() {
+        properties.setMaximumSize(100);
+        properties.setPinnedSize(10);
+        properties.setPinThreshold(3);
+        cache = new QuestionDetailsCache(properties);
+        for (int i = 0; i < 3; i++) {
+            cache.get(1l, loader);
+            cache.get(2l, loader);
+        }
+        for (long id = 3; id < 153; id++) {
+            cache.get(id, loader);
+        }
+        cache.get(1l, loader);
+        cache.get(2l, loader);
+
+        assertThat(loads.get()).isEqualTo(152);
+        assertThat(cache.stats().getPinned()).isEqualTo(2);
+        List<HotQuestion> hot = cache.hotQuestions(2);
+        assertThat(hot.stream().map(HotQuestion::getQuestionId).collect(Collectors.toList())).containsExactlyInAnyOrder(1l, 2l);
+        assertThat(hot).allMatch(HotQuestion::isPinned);
+    }
+
+    /**
+     * Reads a question after its entry expired.
+     *
+     * @result question is loaded again.
+     */
+    @Test
+    public void get_whenEntryExpired_reloads() {
+        properties.setTtl(Duration.ZERO);
+        cache.get(1l, loader);
+        cache.get(1l, loader);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    /**
+     * Reads a question after it was invalidated.
+     *
+     * @result question is loaded again.
+     */
+    @Test
+    public void get_whenInvalidated_reloads() {
+        cache.get(1l, loader);
+        cache.invalidate(1l);
+        cache.get(1l, loader);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    /**
+     * Invalidates a question while it is being loaded.
+     *
+     * @result the value loaded before the invalidation is not cached.
+     */
+    @Test
+    public void get_whenInvalidatedDuringLoad_doesNotCacheStaleValue() {
+        cache.get(1l, id -> {
+            cache.invalidate(1l);
+            return loader.apply(id);
+        });
+        cache.get(1l, loader);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    /**
+     * Invalidates a question, once with the primary reload window and once without it.
+     *
+     * @result the question counts as recently invalidated only within the window, other questions never do.
+     */
+    @Test
+    public void isRecentlyInvalidated_whenInvalidatedWithinWindow_returnsTrue() {
+        assertThat(cache.isRecentlyInvalidated(1l)).isFalse();
+        cache.invalidate(1l);
+        assertThat(cache.isRecentlyInvalidated(1l)).isTrue();
+        assertThat(cache.isRecentlyInvalidated(2l)).isFalse();
+
+        properties.setPrimaryReloadWindow(Duration.ZERO);
+        cache.invalidate(2l);
+        assertThat(cache.isRecentlyInvalidated(2l)).isFalse();
+    }
+
+    /**
+     * Reads a question with the cache switched off.
+     *
+     * @result every read is loaded.
+     */
+    @Test
+    public void get_whenDisabled_alwaysLoads() {
+        properties.setEnabled(false);
+        cache.get(1l, loader);
+        cache.get(1l, loader);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().getSize()).isEqualTo(0);
+    }
+}
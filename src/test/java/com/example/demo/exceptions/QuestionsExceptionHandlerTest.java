@@ -1,5 +1,9 @@
 package com.example.demo.exceptions;
 
+import com.example.demo.api.QuestionsController;
+import com.example.demo.service.QuestionExportService;
+import com.example.demo.service.QuestionJsonService;
+import com.example.demo.service.QuestionSearchService;
 import com.example.demo.service.QuestionService;
 import com.example.demo.exceptions.QuestionsException;
 import org.hamcrest.core.Is;
@@ -24,13 +28,19 @@ import static org.mockito.Mockito.when;
  * @author Narasimha Reddy Guthireddy
  */
 @RunWith(SpringRunner.class)
-@WebMvcTest
+@WebMvcTest(QuestionsController.class)
 public class QuestionsExceptionHandlerTest {
 
     @Autowired
     private MockMvc mvc;
     @MockBean
     private QuestionService delegate;
+    @MockBean
+    private QuestionExportService exportService;
+    @MockBean
+    private QuestionSearchService searchService;
+    @MockBean
+    private QuestionJsonService jsonService;
 
     /**
      * Test case handles {@link QuestionsException} raised by the api and generates
@@ -40,7 +50,7 @@ public class QuestionsExceptionHandlerTest {
      */
     @Test
     public void testHandler_whenQuestionsApiExceptionIsThrown_receivesErrorResponse() throws Exception {
-        when(delegate.getQuestion(2l)).thenThrow(
+        when(delegate.getQuestion(2l, null, null)).thenThrow(
                 new QuestionsException("Sample error", null, "ERROR0001", HttpStatus.UNPROCESSABLE_ENTITY)
         );
         mvc.perform(MockMvcRequestBuilders.get("/questions/2")
@@ -57,7 +67,7 @@ public class QuestionsExceptionHandlerTest {
      */
     @Test
     public void testHandler_whenUnknownExceptionIsThrown_receivesErrorResponse() throws Exception {
-        when(delegate.getQuestion(2l)).thenThrow(
+        when(delegate.getQuestion(2l, null, null)).thenThrow(
                 new RuntimeException("Unknown Exception.")
         );
         mvc.perform(MockMvcRequestBuilders.get("/questions/2")
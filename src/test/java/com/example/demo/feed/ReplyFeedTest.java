@@ -0,0 +1,161 @@
+package com.example.demo.feed;
+
+import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.model.messageReplyResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for {@link ReplyFeed} with emitters which record the replies they are sent instead of writing them to
+ * a connection.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class ReplyFeedTest {
+
+    private ReplyFeed feed;
+
+    @Before
+    public void init() {
+        ReplyFeedProperties properties = new ReplyFeedProperties();
+        properties.setBufferSize(8);
+        properties.setMaxSubscribers(3);
+        properties.setSenderThreads(2);
+        properties.setHeartbeatInterval(Duration.ofHours(1));
+        feed = new ReplyFeed(properties);
+    }
+
+    @After
+    public void close() {
+        feed.destroy();
+    }
+
+    /**
+     * Publishes more replies than the buffer holds while one subscriber cannot be written to, the other subscriber
+     * keeps up.
+     *
+     * @result the slow subscriber is disconnected, the other subscriber of the question receives every reply.
+     */
+    @Test
+    public void publish_whenSubscriberIsSlow_evictsIt() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(new CountDownLatch(1));
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(1L, slow).start(Collections.emptyList(), false);
+        feed.subscribe(1L, fast).start(Collections.emptyList(), false);
+
+        for (long id = 1; id <= 10; id++) {
+            feed.publish(reply(id));
+            assertThat(fast.awaitIds((int) id)).hasSize((int) id);
+        }
+
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(feed.subscriberCount()).isEqualTo(1);
+        assertThat(fast.awaitIds(10)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        slow.release.countDown();
+    }
+
+    /**
+     * Publishes replies while the missed replies of a resuming subscriber are read, one of them among the missed ones.
+     *
+     * @result every reply is sent once, the missed ones first.
+     */
+    @Test
+    public void start_whenRepliesArePublishedDuringReplay_sendsEachReplyOnce() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        ReplyFeed.Subscription subscription = feed.subscribe(1L, emitter);
+        feed.publish(reply(2L));
+        feed.publish(reply(3L));
+
+        subscription.start(Arrays.asList(reply(1L), reply(2L)), false);
+
+        assertThat(emitter.awaitIds(3)).containsExactly(1L, 2L, 3L);
+    }
+
+    /**
+     * Starts a subscriber which missed more replies than are replayed at once.
+     *
+     * @result the replayed replies are sent and the stream is completed, so that the client reconnects.
+     */
+    @Test
+    public void start_whenMoreRepliesWereMissed_completesAfterThem() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(1L, emitter).start(Collections.singletonList(reply(1L)), true);
+
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.awaitIds(1)).containsExactly(1L);
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    /**
+     * Subscribes beyond the maximum number of streams.
+     *
+     * @result the subscription is refused, a stream can be opened again once one is closed.
+     */
+    @Test
+    public void subscribe_whenFeedIsFull_throwsException() {
+        feed.subscribe(1L, new RecordingEmitter(new CountDownLatch(0)));
+        feed.subscribe(2L, new RecordingEmitter(new CountDownLatch(0)));
+        ReplyFeed.Subscription last = feed.subscribe(3L, new RecordingEmitter(new CountDownLatch(0)));
+
+        assertThatThrownBy(() -> feed.subscribe(4L, new RecordingEmitter(new CountDownLatch(0))))
+                .isInstanceOf(QuestionsException.class);
+        last.cancel();
+        feed.subscribe(5L, new RecordingEmitter(new CountDownLatch(0)));
+        assertThat(feed.subscriberCount()).isEqualTo(3);
+    }
+
+    private static ReplyEvent reply(long id) {
+        return new ReplyEvent(id,
+                messageReplyResponse.builder().id(id).questionId(1L).author("author").message("reply " + id).build());
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final List<messageReplyResponse> sent = new CopyOnWriteArrayList<>();
+
+        private RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .filter(data -> data.getData() instanceof messageReplyResponse)
+                    .forEach(data -> sent.add((messageReplyResponse) data.getData()));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        private List<Long> awaitIds(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return sent.stream().map(messageReplyResponse::getId).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.persistence;
+
+import com.example.demo.exceptions.QueryBudgetExceededException;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link StatementCounter}.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class StatementCounterTest {
+
+    private final StatementCounter inspector = new StatementCounter();
+
+    /**
+     * Inspects statements inside and outside of nested scopes.
+     *
+     * @result Each scope counts the statements prepared while it was open, statements are not changed.
+     */
+    @Test
+    public void inspect_whenScopesAreNested_CountsStatementsPerScope() {
+        assertThat(inspector.inspect("select 0")).isEqualTo("select 0");
+        try (StatementCounter.Scope outer = StatementCounter.open()) {
+            inspector.inspect("select 1");
+            try (StatementCounter.Scope inner = StatementCounter.open()) {
+                assertThat(inspector.inspect("select 2")).isEqualTo("select 2");
+                assertThat(inner.getCount()).isEqualTo(1);
+            }
+            inspector.inspect("select 3");
+            assertThat(outer.getCount()).isEqualTo(3);
+        }
+    }
+
+    /**
+     * Inspects one statement more than the budget of a rejecting scope.
+     *
+     * @result The statement within the budget passes, the next one fails.
+     */
+    @Test
+    public void inspect_whenRejectingBudgetIsExceeded_ThrowsException() {
+        try (StatementCounter.Scope scope = StatementCounter.open(1, true)) {
+            inspector.inspect("select 1");
+            assertThatThrownBy(() -> inspector.inspect("select 2"))
+                    .isInstanceOf(QueryBudgetExceededException.class)
+                    .hasMessageNotContaining("select");
+            assertThat(scope.isExceeded()).isTrue();
+        }
+    }
+
+    /**
+     * Exceeds the budget of a logging scope.
+     *
+     * @result All statements pass and the scope reports that its budget is exceeded.
+     */
+    @Test
+    public void inspect_whenLoggingBudgetIsExceeded_CountsStatements() {
+        try (StatementCounter.Scope scope = StatementCounter.open(1, false)) {
+            inspector.inspect("select 1");
+            inspector.inspect("select 2");
+            assertThat(scope.getCount()).isEqualTo(2);
+            assertThat(scope.isExceeded()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.persistence;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test helper asserting the exact number of SQL statements an action prepares, counted by {@link StatementCounter}
+ * on the calling thread.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public final class StatementCounts {
+
+    private StatementCounts() {
+    }
+
+    /**
+     * @param action action to run on the current thread.
+     * @return number of statements prepared by the action.
+     */
+    public static int count(Runnable action) {
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            action.run();
+            return scope.getCount();
+        }
+    }
+
+    /**
+     * Runs an action and asserts the number of statements it prepared.
+     *
+     * @param expected exact number of statements.
+     * @param action   action to run on the current thread.
+     * @return result of the action.
+     */
+    public static <T> T assertStatements(int expected, Supplier<T> action) {
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            T result = action.get();
+            assertThat(scope.getCount()).as("SQL statements").isEqualTo(expected);
+            return result;
+        }
+    }
+}
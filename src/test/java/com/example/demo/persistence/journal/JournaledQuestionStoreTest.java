@@ -0,0 +1,139 @@
+package com.example.demo.persistence.journal;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link JournaledQuestionStore} which tests recovery from the write-ahead log, from snapshots and
+ * from both.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class JournaledQuestionStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageProperties properties;
+    private JournaledQuestionStore store;
+
+    @Before
+    public void init() throws IOException {
+        properties = new StorageProperties();
+        properties.getJournal().setDirectory(folder.getRoot().getPath());
+        store = new JournaledQuestionStore(properties);
+    }
+
+    @After
+    public void close() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Reopens the store without a snapshot, as after a crash. Crashed stores are abandoned without closing them.
+     *
+     * @result all writes are replayed from the log.
+     */
+    @Test
+    public void open_whenOnlyLogExists_replaysLog() throws IOException {
+        QuestionsEntity question = store.save(question("q"));
+        store.addReplies(question.getId(), Arrays.asList(reply(question.getId(), "r1"), reply(question.getId(), "r2")));
+
+        store = new JournaledQuestionStore(properties);
+
+        assertThat(store.findById(question.getId()).get().getReplyCount()).isEqualTo(2);
+        assertThat(store.findById(question.getId()).get().getVersion()).isEqualTo(2);
+        assertThat(store.findReplyDetailsPage(question.getId(), 0, 10).stream().map(ReplyDetails::getMessage))
+                .containsExactly("r1", "r2");
+    }
+
+    /**
+     * Reopens the store after a snapshot and further writes.
+     *
+     * @result the snapshot is loaded, the writes after it are replayed and obsolete logs are deleted.
+     */
+    @Test
+    public void open_whenSnapshotAndLogExist_loadsSnapshotAndReplaysTail() throws IOException {
+        QuestionsEntity first = store.save(question("first"));
+        store.save(reply(first.getId(), "before snapshot"));
+        assertThat(store.snapshot()).isEqualTo(1);
+        QuestionsEntity second = store.save(question("second"));
+        store.save(reply(first.getId(), "after snapshot"));
+
+        store = new JournaledQuestionStore(properties);
+
+        assertThat(store.findAllQuestionDetails().stream().map(QuestionDetails::getMessage))
+                .containsExactly("first", "second");
+        assertThat(store.findReplyDetailsPage(first.getId(), 0, 10).stream().map(ReplyDetails::getMessage))
+                .containsExactly("before snapshot", "after snapshot");
+        assertThat(store.save(question("third")).getId()).isGreaterThan(second.getId() + 1);
+        assertThat(files("wal-")).noneMatch(file -> file.endsWith("wal-00000001.log"));
+    }
+
+    /**
+     * Reopens the store after the last log entry was torn by a crash.
+     *
+     * @result the torn entry is dropped and later writes survive the next restart.
+     */
+    @Test
+    public void open_whenLastEntryIsTorn_dropsIt() throws IOException {
+        store.save(question("kept"));
+        Files.write(files("wal-").get(0), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        new JournaledQuestionStore(properties).save(question("new"));
+        store = new JournaledQuestionStore(properties);
+
+        assertThat(store.findAllQuestionDetails().stream().map(QuestionDetails::getMessage))
+                .containsExactly("kept", "new");
+    }
+
+    /**
+     * Closes the store and reopens it.
+     *
+     * @result the state is loaded from the snapshot taken on close, no log is replayed.
+     */
+    @Test
+    public void close_takesSnapshot() throws IOException {
+        QuestionsEntity question = store.save(question("q"));
+        store.close();
+
+        store = new JournaledQuestionStore(properties);
+
+        assertThat(store.findById(question.getId())).isPresent();
+        assertThat(files("snapshot-")).hasSize(1);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static QuestionsEntity question(String message) {
+        return QuestionsEntity.builder().author("author").message(message).build();
+    }
+
+    private static QuestionsEntity reply(Long questionId, String message) {
+        return QuestionsEntity.builder().author("author").message(message).parentQuestionId(questionId).build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.persistence.routing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link ReadWriteRoutingDataSource} and {@link ReadYourWritesInterceptor} over two embedded H2
+ * databases, the primary and one replica, each holding a row which tells them apart.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public void init() {
+        String name = UUID.randomUUID().toString();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                database(name + "-primary", "primary"),
+                Collections.singletonList(database(name + "-replica", "replica"))));
+        jdbc = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @After
+    public void close() {
+        ReplicaRouting.unpin();
+    }
+
+    /**
+     * Reads in read-only and read-write transactions and outside of any transaction.
+     *
+     * @result only the read-only transaction is served by the replica.
+     */
+    @Test
+    public void route_whenTransactionIsReadOnly_readsReplica() {
+        assertThat(source(readOnly)).isEqualTo("replica");
+        assertThat(source(readWrite)).isEqualTo("primary");
+        assertThat(source()).isEqualTo("primary");
+    }
+
+    /**
+     * Reads in a read-only transaction after a write of the same client.
+     *
+     * @result the write hands out a cookie, a read with that cookie is pinned to the primary until the request ends.
+     */
+    @Test
+    public void route_whenClientWroteRecently_readsPrimary() {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofSeconds(5));
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/questions"), postResponse, null);
+        Cookie cookie = postResponse.getCookie(ReadYourWritesInterceptor.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/questions");
+        get.setCookies(cookie);
+        interceptor.preHandle(get, new MockHttpServletResponse(), null);
+        assertThat(source(readOnly)).isEqualTo("primary");
+
+        interceptor.afterCompletion(get, new MockHttpServletResponse(), null, null);
+        assertThat(source(readOnly)).isEqualTo("replica");
+    }
+
+    /**
+     * Reads with a cookie whose window has passed.
+     *
+     * @result the read is served by the replica again.
+     */
+    @Test
+    public void route_whenWindowExpired_readsReplica() {
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/questions");
+        get.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        new ReadYourWritesInterceptor(Duration.ofSeconds(5)).preHandle(get, new MockHttpServletResponse(), null);
+
+        assertThat(source(readOnly)).isEqualTo("replica");
+    }
+
+    /**
+     * Reads in a read-only transaction started inside {@link ReplicaRouting#onPrimary}, with and without a pin of the
+     * request.
+     *
+     * @result the read is served by the primary, a pin of the request is kept afterwards.
+     */
+    @Test
+    public void onPrimary_whenReadOnly_readsPrimaryAndRestoresPin() {
+        assertThat(ReplicaRouting.onPrimary(() -> source(readOnly))).isEqualTo("primary");
+        assertThat(source(readOnly)).isEqualTo("replica");
+
+        ReplicaRouting.pinPrimary();
+        assertThat(ReplicaRouting.onPrimary(() -> source(readOnly))).isEqualTo("primary");
+        assertThat(ReplicaRouting.isPrimaryPinned()).isTrue();
+    }
+
+    private String source(TransactionTemplate transaction) {
+        return transaction.execute(status -> source());
+    }
+
+    private String source() {
+        return jdbc.queryForObject("select name from source", String.class);
+    }
+
+    private static DriverManagerDataSource database(String name, String source) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table source (name varchar(20))");
+        jdbc.update("insert into source (name) values (?)", source);
+        return dataSource;
+    }
+}
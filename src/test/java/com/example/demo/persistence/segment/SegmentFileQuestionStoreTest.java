@@ -0,0 +1,206 @@
+package com.example.demo.persistence.segment;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.IndexedMessage;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for {@link SegmentFileQuestionStore} which tests writes, reads, paging and recovery from the segment files.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class SegmentFileQuestionStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageProperties properties;
+    private SegmentFileQuestionStore store;
+
+    @Before
+    public void init() throws IOException {
+        properties = new StorageProperties();
+        properties.getSegment().setDirectory(folder.getRoot().getPath());
+        properties.getSegment().setSize(DataSize.ofKilobytes(1));
+        store = new SegmentFileQuestionStore(properties);
+    }
+
+    @After
+    public void close() throws IOException {
+        store.close();
+    }
+
+    /**
+     * Saves a question and replies to it.
+     *
+     * @result question details and replies are read back with the reply count and version.
+     */
+    @Test
+    public void save_whenQuestionAndReplies_readsThemBack() {
+        QuestionsEntity question = store.save(question("How?"));
+        List<QuestionsEntity> replies = store.addReplies(question.getId(),
+                Arrays.asList(reply(question.getId(), "Like this"), reply(question.getId(), "Or that"))).get();
+
+        QuestionsEntity read = store.findById(question.getId()).get();
+        assertThat(read.getMessage()).isEqualTo("How?");
+        assertThat(read.getReplyCount()).isEqualTo(2);
+        assertThat(read.getVersion()).isEqualTo(2);
+        assertThat(store.findById(replies.get(0).getId()).get().getParentQuestionId()).isEqualTo(question.getId());
+        assertThat(store.findReplyDetailsPage(question.getId(), 0, 10).stream().map(ReplyDetails::getMessage))
+                .containsExactly("Like this", "Or that");
+        assertThat(store.findReplyDetailsPage(question.getId(), replies.get(0).getId(), 10).stream().map(ReplyDetails::getId))
+                .containsExactly(replies.get(1).getId());
+    }
+
+    /**
+     * Reads keyset pages of questions.
+     *
+     * @result pages hold the questions after the cursor in id order.
+     */
+    @Test
+    public void findQuestionDetailsPage_whenAfterIsSet_returnsFollowingQuestions() {
+        List<QuestionsEntity> questions = store.saveAll(Arrays.asList(question("a"), question("b"), question("c")));
+        store.save(reply(questions.get(0).getId(), "reply"));
+
+        assertThat(store.findQuestionDetailsPage(0, 2).stream().map(QuestionDetails::getMessage)).containsExactly("a", "b");
+        assertThat(store.findQuestionDetailsPage(questions.get(1).getId(), 2).stream().map(QuestionDetails::getMessage))
+                .containsExactly("c");
+        assertThat(store.findAllQuestionDetails()).hasSize(3);
+    }
+
+    /**
+     * Replies to a question which does not exist.
+     *
+     * @result nothing is written.
+     */
+    @Test
+    public void saveAll_whenQuestionDoesNotExist_writesNothing() {
+        QuestionsEntity question = store.save(question("q"));
+        assertThatThrownBy(() -> store.saveAll(Arrays.asList(reply(question.getId(), "ok"), reply(999L, "missing"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.findReplyDetailsPage(question.getId(), 0, 10)).isEmpty();
+        assertThat(store.addReply(999L, reply(999L, "missing"))).isEmpty();
+    }
+
+    /**
+     * Replies to a question with a reply larger than a segment.
+     *
+     * @result the reply is rejected and the reply count and version of the question are unchanged.
+     */
+    @Test
+    public void addReply_whenReplyCannotBeWritten_doesNotCountIt() {
+        QuestionsEntity question = store.save(question("q"));
+        char[] message = new char[2048];
+        Arrays.fill(message, 'x');
+        assertThatThrownBy(() -> store.addReply(question.getId(), reply(question.getId(), new String(message))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        QuestionsEntity read = store.findById(question.getId()).get();
+        assertThat(read.getReplyCount()).isZero();
+        assertThat(read.getVersion()).isZero();
+        assertThat(store.reconcileReplyCounts()).isZero();
+    }
+
+    /**
+     * Reopens the store after writing more records than fit in one segment.
+     *
+     * @result all records are recovered and new ids continue after the recovered ones.
+     */
+    @Test
+    public void open_whenSegmentsExist_recoversAllRecords() throws IOException {
+        QuestionsEntity question = store.save(question("first"));
+        for (int i = 0; i < 40; i++) {
+            store.addReply(question.getId(), reply(question.getId(), "reply number " + i));
+        }
+        store.close();
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        store = new SegmentFileQuestionStore(properties);
+
+        assertThat(store.findById(question.getId()).get().getReplyCount()).isEqualTo(40);
+        assertThat(store.findReplyDetailsPage(question.getId(), 0, 100)).hasSize(40);
+        try (Stream<IndexedMessage> messages = store.streamIndexedMessages()) {
+            assertThat(messages.count()).isEqualTo(41);
+        }
+        assertThat(store.save(question("next")).getId()).isEqualTo(question.getId() + 41);
+    }
+
+    /**
+     * Reopens the store after the last record was torn by a crash.
+     *
+     * @result the torn record is dropped and later writes are readable.
+     */
+    @Test
+    public void open_whenLastRecordIsTorn_dropsIt() throws IOException {
+        store.save(question("kept"));
+        QuestionsEntity torn = store.save(question("torn"));
+        store.close();
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            int tornOffset = Segment.HEADER_SIZE + Record.length(Record.bytes("author"), Record.bytes("kept"));
+            channel.write(ByteBuffer.allocate(4), tornOffset);  // length of the second record
+        }
+
+        store = new SegmentFileQuestionStore(properties);
+
+        assertThat(store.findById(torn.getId())).isEmpty();
+        assertThat(store.findAllQuestionDetails().stream().map(QuestionDetails::getMessage)).containsExactly("kept");
+        store.save(question("new"));
+        store.close();
+        store = new SegmentFileQuestionStore(properties);
+        assertThat(store.findAllQuestionDetails().stream().map(QuestionDetails::getMessage)).containsExactly("kept", "new");
+    }
+
+    /**
+     * Repairs reply counts which drifted from the stored replies.
+     *
+     * @result the count matches the replies and the repair survives a restart.
+     */
+    @Test
+    public void reconcileReplyCounts_whenCountDrifted_repairsIt() throws IOException {
+        QuestionsEntity question = store.save(question("q"));
+        store.save(reply(question.getId(), "r"));
+
+        assertThat(store.reconcileReplyCounts()).isEqualTo(1);
+        assertThat(store.reconcileReplyCounts()).isEqualTo(0);
+        store.close();
+        store = new SegmentFileQuestionStore(properties);
+        assertThat(store.findById(question.getId()).get().getReplyCount()).isEqualTo(1);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static QuestionsEntity question(String message) {
+        return QuestionsEntity.builder().author("author").message(message).build();
+    }
+
+    private static QuestionsEntity reply(Long questionId, String message) {
+        return QuestionsEntity.builder().author("author").message(message).parentQuestionId(questionId).build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.persistence.sharded;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.QuestionsEntity;
+import com.example.demo.persistence.StorageProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for {@link ShardedQuestionStore} over three embedded H2 databases, which tests the placement of questions
+ * and replies and the merged listings.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class ShardedQuestionStoreTest {
+
+    private ShardedQuestionStore store;
+
+    @Before
+    public void init() {
+        StorageProperties properties = new StorageProperties();
+        String name = UUID.randomUUID().toString();
+        properties.getSharded().setUrls(IntStream.range(0, 3)
+                .mapToObj(i -> "jdbc:h2:mem:" + name + "-" + i + ";DB_CLOSE_DELAY=-1")
+                .collect(Collectors.toList()));
+        properties.getSharded().setPoolSize(2);
+        store = new ShardedQuestionStore(properties);
+    }
+
+    @After
+    public void close() {
+        store.close();
+    }
+
+    /**
+     * Saves questions and replies to them.
+     *
+     * @result questions are spread over all shards and every reply is stored in the shard of its question.
+     */
+    @Test
+    public void saveAll_whenRepliesAreSaved_storesThemWithTheirQuestion() {
+        List<QuestionsEntity> questions = store.saveAll(questions(30));
+        QuestionsEntity question = questions.get(7);
+        List<QuestionsEntity> replies = store.addReplies(question.getId(),
+                Arrays.asList(reply(question.getId(), "r1"), reply(question.getId(), "r2"))).get();
+
+        assertThat(questions.stream().map(saved -> store.shardOf(saved.getId())).distinct()).hasSize(3);
+        assertThat(store.findById(question.getId()).get().getReplyCount()).isEqualTo(2);
+        assertThat(store.findById(replies.get(1).getId()).get().getParentQuestionId()).isEqualTo(question.getId());
+        assertThat(store.findReplyDetailsPage(question.getId(), 0, 10).stream().map(ReplyDetails::getMessage))
+                .containsExactly("r1", "r2");
+        assertThat(store.reconcileReplyCounts()).isZero();
+    }
+
+    /**
+     * Pages through questions stored in several shards.
+     *
+     * @result each page holds the lowest ids after the cursor, all questions are listed once in id order.
+     */
+    @Test
+    public void findQuestionDetailsPage_whenQuestionsAreSharded_mergesPagesInIdOrder() {
+        List<Long> ids = store.saveAll(questions(25)).stream().map(QuestionsEntity::getId).collect(Collectors.toList());
+
+        List<Long> listed = new ArrayList<>();
+        long after = 0;
+        List<QuestionDetails> page;
+        while (!(page = store.findQuestionDetailsPage(after, 4)).isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(4);
+            page.forEach(question -> listed.add(question.getId()));
+            after = page.get(page.size() - 1).getId();
+        }
+
+        assertThat(listed).isEqualTo(ids).isSorted();
+        assertThat(store.findAllQuestionDetails().stream().map(QuestionDetails::getId)).containsExactlyElementsOf(ids);
+        try (Stream<QuestionDetails> stream = store.streamAllQuestionDetails()) {
+            assertThat(stream.map(QuestionDetails::getId)).containsExactlyElementsOf(ids);
+        }
+    }
+
+    /**
+     * Reply count of a question drifts from its replies.
+     *
+     * @result the count is repaired on the shard of the question.
+     */
+    @Test
+    public void reconcileReplyCounts_whenCountDrifted_repairsCount() {
+        QuestionsEntity question = store.save(question("q"));
+        store.save(reply(question.getId(), "r"));
+
+        assertThat(store.reconcileReplyCounts()).isEqualTo(1);
+        assertThat(store.findById(question.getId()).get().getReplyCount()).isEqualTo(1);
+        assertThat(store.findVersionById(question.getId())).contains(1L);
+    }
+
+    /**
+     * Replies to a question which does not exist.
+     *
+     * @result nothing is saved.
+     */
+    @Test
+    public void save_whenQuestionIsMissing_throwsException() {
+        assertThatThrownBy(() -> store.save(reply(Long.MAX_VALUE, "r")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.addReply(Long.MAX_VALUE, reply(Long.MAX_VALUE, "r"))).isEmpty();
+        try (Stream<?> messages = store.streamIndexedMessages()) {
+            assertThat(messages).isEmpty();
+        }
+    }
+
+    private static List<QuestionsEntity> questions(int count) {
+        return IntStream.range(0, count).mapToObj(i -> question("q" + i)).collect(Collectors.toList());
+    }
+
+    private static QuestionsEntity question(String message) {
+        return QuestionsEntity.builder().author("author").message(message).build();
+    }
+
+    private static QuestionsEntity reply(Long questionId, String message) {
+        return QuestionsEntity.builder().author("author").message(message).parentQuestionId(questionId).build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.readmodel;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.ReplyDetails;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link QuestionReadModel} which tests adding messages, keyset pages and growing the structures.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QuestionReadModelTest {
+
+    private QuestionReadModel model;
+
+    @Before
+    public void init() {
+        ReadModelProperties properties = new ReadModelProperties();
+        properties.setExpectedQuestions(1);
+        model = new QuestionReadModel(properties);
+    }
+
+    /**
+     * Adds a question with replies.
+     *
+     * @result the question is read with its reply count and its replies in id order.
+     */
+    @Test
+    public void addReply_whenQuestionExists_countsAndPagesReplies() {
+        model.addQuestion(10, "author", "question");
+        model.addReply(13, 10, "b", "second");
+        model.addReply(12, 10, "a", "first");
+        model.addReply(14, 99, "c", "unknown question");
+
+        QuestionDetails question = model.findQuestion(10);
+        assertThat(question.getMessage()).isEqualTo("question");
+        assertThat(question.getReplies()).isEqualTo(2);
+        assertThat(model.findReplyPage(10, 0, 10).stream().map(ReplyDetails::getMessage)).containsExactly("first", "second");
+        assertThat(model.findReplyPage(10, 12, 10).stream().map(ReplyDetails::getId)).containsExactly(13L);
+        assertThat(model.findQuestion(99)).isNull();
+    }
+
+    /**
+     * Adds the same messages twice.
+     *
+     * @result the duplicates are ignored.
+     */
+    @Test
+    public void addQuestion_whenAddedTwice_isIgnored() {
+        model.addQuestion(1, "author", "question");
+        model.addQuestion(1, "author", "question");
+        model.addReply(2, 1, "author", "reply");
+        model.addReply(2, 1, "author", "reply");
+
+        assertThat(model.questionCount()).isEqualTo(1);
+        assertThat(model.findQuestion(1).getReplies()).isEqualTo(1);
+    }
+
+    /**
+     * Adds many questions out of id order, beyond the expected size.
+     *
+     * @result keyset pages return the questions in id order.
+     */
+    @Test
+    public void findQuestionPage_whenQuestionsArriveOutOfOrder_pagesInIdOrder() {
+        for (long id = 1000; id > 0; id -= 2) {
+            model.addQuestion(id, "author", "q" + id);
+        }
+        for (long id = 1; id < 1000; id += 2) {
+            model.addQuestion(id, "author", "q" + id);
+        }
+
+        assertThat(model.findAllQuestions()).hasSize(1000);
+        assertThat(model.findQuestionPage(0, 3).stream().map(QuestionDetails::getId)).containsExactly(1L, 2L, 3L);
+        assertThat(model.findQuestionPage(998, 5).stream().map(QuestionDetails::getId).collect(Collectors.toList()))
+                .containsExactly(999L, 1000L);
+        assertThat(model.findQuestion(500).getMessage()).isEqualTo("q500");
+    }
+}
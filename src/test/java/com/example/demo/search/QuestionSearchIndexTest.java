@@ -0,0 +1,175 @@
+package com.example.demo.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link QuestionSearchIndex} which tests tokenizing, ranking, paging and rebuilding.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QuestionSearchIndexTest {
+
+    private QuestionSearchIndex index;
+
+    @Before
+    public void init() {
+        index = new QuestionSearchIndex(new SearchProperties());
+        index.index(1, 1, "How do I configure Spring Boot?");
+        index.index(2, 2, "Spring, spring and more SPRING");
+        index.index(3, 3, "Nothing related");
+        index.index(4, 3, "Use spring profiles");
+    }
+
+    /**
+     * Splits a message into terms.
+     *
+     * @result terms are lower case letters and digits and counted.
+     */
+    @Test
+    public void tokenize_whenMessageHasPunctuation_returnsLowerCaseTerms() {
+        assertThat(QuestionSearchIndex.tokenize("Java 8, java-8!").keySet()).containsExactly("java", "8");
+        assertThat(QuestionSearchIndex.tokenize("Java 8, java-8!").get("java")).isEqualTo(2);
+    }
+
+    /**
+     * Searches a term contained by several questions and replies.
+     *
+     * @result questions are ranked by relevance, replies match their question.
+     */
+    @Test
+    public void search_whenTermMatches_ranksByRelevance() {
+        SearchHits hits = index.search("spring", 0, 10);
+        assertThat(hits.getTotal()).isEqualTo(3);
+        assertThat(hits.getQuestionIds().get(0)).isEqualTo(2l);
+        assertThat(hits.getQuestionIds()).containsExactlyInAnyOrder(1l, 2l, 3l);
+    }
+
+    /**
+     * Searches with several terms.
+     *
+     * @result questions matching more terms rank first.
+     */
+    @Test
+    public void search_whenSeveralTerms_ranksQuestionsMatchingMoreTermsFirst() {
+        SearchHits hits = index.search("configure boot", 0, 10);
+        assertThat(hits.getQuestionIds()).containsExactly(1l);
+    }
+
+    /**
+     * Searches a term contained once by a short question and once by a long thread.
+     *
+     * @result the short question ranks first, term frequencies are normalized by the length of the question.
+     */
+    @Test
+    public void search_whenQuestionsDifferInLength_ranksShorterQuestionFirst() {
+        index.index(10, 10, "gradle wrapper upgrade fails behind a corporate proxy with a certificate error");
+        index.index(11, 10, "the proxy settings of the wrapper are read from the gradle properties file");
+        index.index(12, 12, "certificate pinning");
+        assertThat(index.search("certificate", 0, 10).getQuestionIds()).containsExactly(12l, 10l);
+    }
+
+    /**
+     * Searches a term found in a question and in a reply to it indexed after a later question.
+     *
+     * @result the occurrences of the question and its reply are summed, the question ranks first and counts once.
+     */
+    @Test
+    public void search_whenReplyArrivesAfterLaterQuestion_sumsOccurrencesOfTheQuestion() {
+        index.index(10, 10, "alpha");
+        index.index(11, 11, "beta alpha");
+        index.index(12, 10, "gamma");
+        index.index(13, 10, "alpha alpha");
+        SearchHits hits = index.search("alpha", 0, 10);
+        assertThat(hits.getQuestionIds()).containsExactly(10l, 11l);
+        assertThat(hits.getTotal()).isEqualTo(2);
+    }
+
+    /**
+     * Searches a term found in many replies to older questions, enough for the postings appended out of order to be
+     * merged into the sorted ones, one question getting it twice.
+     *
+     * @result every question is found once, the one with both replies ranks first.
+     */
+    @Test
+    public void search_whenManyRepliesArriveOutOfOrder_findsEveryQuestionOnce() {
+        for (long id = 100; id < 300; id++) {
+            index.index(id, id, "question " + id);
+        }
+        for (long id = 299; id >= 100; id--) {
+            index.index(1000 + id, id, "omega");
+        }
+        index.index(2000, 150, "omega");
+        SearchHits hits = index.search("omega", 0, 300);
+        assertThat(hits.getTotal()).isEqualTo(200);
+        assertThat(hits.getQuestionIds()).doesNotHaveDuplicates().hasSize(200);
+        assertThat(hits.getQuestionIds().get(0)).isEqualTo(150l);
+        assertThat(hits.getQuestionIds().get(1)).isEqualTo(100l);
+    }
+
+    /**
+     * Searches a term contained by questions of the same score indexed out of id order, one page at a time.
+     *
+     * @result questions of the same score rank by lowest id.
+     */
+    @Test
+    public void search_whenScoresTie_ranksLowerIdFirst() {
+        index.index(21, 21, "zeta");
+        index.index(20, 20, "zeta");
+        assertThat(index.search("zeta", 0, 10).getQuestionIds()).containsExactly(20l, 21l);
+        assertThat(index.search("zeta", 1, 1).getQuestionIds()).containsExactly(21l);
+        assertThat(index.search("zeta", 2, 1).getQuestionIds()).isEmpty();
+    }
+
+    /**
+     * Reads the second page of a search.
+     *
+     * @result page contains the matches after the offset.
+     */
+    @Test
+    public void search_whenPaged_returnsMatchesAfterOffset() {
+        SearchHits first = index.search("spring", 0, 2);
+        SearchHits second = index.search("spring", 2, 2);
+        assertThat(first.getQuestionIds()).hasSize(2);
+        assertThat(second.getQuestionIds()).hasSize(1);
+        assertThat(second.getQuestionIds()).doesNotContainAnyElementsOf(first.getQuestionIds());
+    }
+
+    /**
+     * Rebuilds the index while a new message is written.
+     *
+     * @result message indexed during the rebuild is searchable once, messages of the rebuild replace the old index.
+     */
+    @Test
+    public void rebuild_whenMessageIsIndexedMeanwhile_keepsItOnce() {
+        QuestionSearchIndex.Rebuild rebuild = index.startRebuild();
+        index.index(5, 5, "kotlin coroutines");
+        for (long id : Arrays.asList(1l, 5l)) {
+            rebuild.add(id, id, id == 1 ? "How do I configure Spring Boot?" : "kotlin coroutines");
+        }
+        rebuild.finish();
+        assertThat(index.search("spring", 0, 10).getQuestionIds()).containsExactly(1l);
+        assertThat(index.search("kotlin", 0, 10).getQuestionIds()).containsExactly(5l);
+    }
+
+    /**
+     * Rebuilds the index and fails while reading the database, a message is written meanwhile.
+     *
+     * @result the message is searchable during the rebuild and after the failure, a new rebuild can be started.
+     */
+    @Test
+    public void rebuild_whenAborted_keepsMessagesIndexedMeanwhile() {
+        QuestionSearchIndex.Rebuild rebuild = index.startRebuild();
+        index.index(5, 5, "kotlin coroutines");
+        assertThat(index.search("kotlin", 0, 10).getQuestionIds()).containsExactly(5l);
+
+        rebuild.abort();
+        assertThat(index.search("kotlin", 0, 10).getQuestionIds()).containsExactly(5l);
+        assertThat(index.search("spring", 0, 10).getTotal()).isEqualTo(3);
+        index.startRebuild().finish();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.model.QuestionDetails;
+import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.ReplyDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for {@link QuestionJsonWriter} which compares its output with Jackson's serialization of the DTOs,
+ * with an object mapper configured like the one of the application.
+ *
+ * @author Narasimha Reddy Guthireddy
+ */
+public class QuestionJsonWriterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final QuestionJsonWriter writer = new QuestionJsonWriter(objectMapper.getFactory());
+
+    private final List<QuestionDetails> questions = Arrays.asList(
+            new QuestionDetails(1L, "author", "plain message", 3L),
+            new QuestionDetails(2L, null, "quotes \" and \\ and\nnew line", 0L),
+            new QuestionDetails(3L, "été ☃", null, 12L));
+
+    /**
+     * Writes a page of questions holding all rows.
+     *
+     * @result the bytes equal the serialized list of DTOs and there is no next page.
+     */
+    @Test
+    public void writeQuestionPage_whenAllRowsFit_matchesDtoSerialization() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Long nextAfter = writer.writeQuestionPage(handler -> questions.forEach(question ->
+                handler.row(question.getId(), question.getAuthor(), question.getMessage(), question.getReplies())), 3, out);
+
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(questions));
+        assertThat(nextAfter).isNull();
+    }
+
+    /**
+     * Writes a page of questions from one more row than the page size.
+     *
+     * @result the extra row is left out and the page ends after the last written question.
+     */
+    @Test
+    public void writeQuestionPage_whenMoreRowsExist_returnsNextAfter() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Long nextAfter = writer.writeQuestionPage(handler -> questions.forEach(question ->
+                handler.row(question.getId(), question.getAuthor(), question.getMessage(), question.getReplies())), 2, out);
+
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(questions.subList(0, 2)));
+        assertThat(nextAfter).isEqualTo(2L);
+    }
+
+    /**
+     * Writes a question with a page of its replies, with and without a next page.
+     *
+     * @result the bytes equal the serialized response DTO including the cursor or its null value.
+     */
+    @Test
+    public void writeQuestion_whenRepliesArePaged_matchesDtoSerialization() throws Exception {
+        List<ReplyDetails> replies = Arrays.asList(new ReplyDetails(4L, "author", "first ☃"),
+                new ReplyDetails(5L, "author", null), new ReplyDetails(6L, "author", "third"));
+
+        ByteArrayOutputStream firstPage = new ByteArrayOutputStream();
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        writer.writeQuestion(1L, "author", "question", 3L, handler -> replies.forEach(reply ->
+                handler.row(reply.getId(), reply.getAuthor(), reply.getMessage(), 0)), 2, firstPage);
+        writer.writeQuestion(1L, "author", "question", 0L, handler -> {
+        }, 2, empty);
+
+        assertThat(firstPage.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(QuestionsResponse.builder()
+                .id(1L).author("author").message("question").replies(replies.subList(0, 2)).totalReplies(3L)
+                .nextRepliesCursor(Cursors.encode(5L)).build()));
+        assertThat(empty.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(QuestionsResponse.builder()
+                .id(1L).author("author").message("question").replies(Collections.emptyList()).totalReplies(0L).build()));
+    }
+}
@@ -1,22 +1,43 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.QuestionDetailsCache;
+import com.example.demo.cache.QuestionsCacheProperties;
 import com.example.demo.exceptions.QuestionsException;
+import com.example.demo.feed.ReplyFeed;
+import com.example.demo.model.BatchItemResult;
 import com.example.demo.model.messageReplyResponse;
 import com.example.demo.model.MessageQuestionReplyBody;
 import com.example.demo.model.QuestionDetails;
 import com.example.demo.model.QuestionsResponse;
+import com.example.demo.model.ReplyDetails;
+import com.example.demo.persistence.JpaQuestionStore;
+import com.example.demo.persistence.QuestionSummaryRepository;
 import com.example.demo.persistence.QuestionsEntity;
 import com.example.demo.persistence.QuestionsRepository;
+import com.example.demo.readmodel.QuestionReadModel;
+import com.example.demo.readmodel.ReadModelProperties;
+import com.example.demo.search.QuestionSearchIndex;
 import com.example.demo.service.QuestionService;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +45,12 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -34,10 +61,27 @@ import static org.mockito.Mockito.when;
 @RunWith(SpringJUnit4ClassRunner.class)
 public class QuestionServiceTest {
 
-    @InjectMocks
     private QuestionService controllerDelegate;
     @Mock
     private QuestionsRepository repository;
+    @Mock
+    private QuestionSummaryRepository summaryRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private QuestionSearchIndex searchIndex;
+    @Mock
+    private ReplyFeed replyFeed;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private QuestionDetailsCache cache = new QuestionDetailsCache(new QuestionsCacheProperties());
+
+    @Before
+    public void init() {
+        controllerDelegate = new QuestionService(new JpaQuestionStore(repository, summaryRepository, jdbcTemplate), cache, searchIndex,
+                new QuestionReadModel(new ReadModelProperties()), replyFeed, transactionManager);
+    }
 
     /**
      * Test add new question with valid input to test success flow.
@@ -98,11 +142,13 @@ public class QuestionServiceTest {
     @Test
     public void messageReply_WhenInputIsValid_createsNewReply() {
         when(repository.save(any())).thenReturn(createReplyEntity());
-        when(repository.findById(any())).thenReturn(Optional.of(createReplyEntity()));
+        stubIncrementReplyCount(1);
         ResponseEntity<messageReplyResponse> response = controllerDelegate.messageReply(10l, getValidRequestBody());
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getId()).isEqualTo(101l);
         assertThat(response.getBody().getQuestionId()).isEqualTo(10l);
+        verify(repository, never()).findById(any());
+        verify(searchIndex).index(101l, 10l, "first message");
     }
 
     /**
@@ -112,10 +158,13 @@ public class QuestionServiceTest {
      */
     @Test
     public void messageReply_whenInputQuestionIsNotFound_throwsException() {
-        when(repository.findById(any())).thenReturn(Optional.empty());
+        stubIncrementReplyCount(0);
         assertThatThrownBy(() -> controllerDelegate.messageReply(10l, getValidRequestBody()))
-                .hasMessageContaining("Reply Not Found.")
+                .hasMessageContaining("Question Not Found.")
+                .hasFieldOrPropertyWithValue("errorCode", "ERROR002")
+                .hasFieldOrPropertyWithValue("status", HttpStatus.NOT_FOUND)
                 .isInstanceOf(QuestionsException.class);
+        verify(repository, never()).save(any());
     }
 
     /**
@@ -149,7 +198,7 @@ public class QuestionServiceTest {
      */
     @Test
     public void messageReply_WhenJPAExceptionOccurs_ThrowsException() {
-        when(repository.findById(any())).thenReturn(Optional.of(createReplyEntity().getQuestion()));
+        stubIncrementReplyCount(1);
         when(repository.save(any())).thenThrow(new JpaSystemException(new RuntimeException("sample exception")));
         assertThatThrownBy(() -> controllerDelegate.messageReply(10l, getValidRequestBody()))
                 .hasMessageContaining("Reply Not Found")
@@ -157,6 +206,51 @@ public class QuestionServiceTest {
                 .isInstanceOf(QuestionsException.class);
     }
 
+    /**
+     * Test bulk add of new questions with valid input.
+     *
+     * @result all questions are saved together and their ids returned in request order.
+     */
+    @Test
+    public void registerQuestions_WhenInputIsValid_ReturnNewQuestionsCreated() {
+        when(repository.saveAll(any())).thenReturn(Arrays.asList(createQuestionsEntity(), createQuestionsEntity()));
+        ResponseEntity<List<BatchItemResult>> response = controllerDelegate.registerQuestions(
+                Arrays.asList(getValidRequestBody(), getValidRequestBody()));
+        assertThat(response.getBody().size()).isEqualTo(2);
+        assertThat(response.getBody().get(1).getIndex()).isEqualTo(1);
+        assertThat(response.getBody().get(1).getId()).isEqualTo(101l);
+    }
+
+    /**
+     * Test bulk add of new questions when one item is invalid.
+     *
+     * @result the invalid item is reported with its validation error, only the valid item is saved.
+     */
+    @Test
+    public void registerQuestions_WhenAnItemIsInvalid_ReportsItAndSavesTheOthers() {
+        when(repository.saveAll(any())).thenReturn(Collections.singletonList(createQuestionsEntity()));
+        ResponseEntity<List<BatchItemResult>> response = controllerDelegate.registerQuestions(
+                Arrays.asList(getRequestWithEmptyMessage(), getValidRequestBody()));
+        assertThat(response.getBody().get(0).getErrorCode()).isEqualTo("ERROR009");
+        assertThat(response.getBody().get(0).getId()).isNull();
+        assertThat(response.getBody().get(1).getId()).isEqualTo(101l);
+        verify(repository).saveAll(argThat(entities -> entities.spliterator().getExactSizeIfKnown() == 1));
+    }
+
+    /**
+     * Test bulk add of new replies when input question is not found.
+     *
+     * @result not found error is thrown and nothing is saved.
+     */
+    @Test
+    public void messageReplies_whenInputQuestionIsNotFound_throwsException() {
+        stubIncrementReplyCount(0);
+        assertThatThrownBy(() -> controllerDelegate.messageReplies(10l, Collections.singletonList(getValidRequestBody())))
+                .hasMessageContaining("Question Not Found.")
+                .isInstanceOf(QuestionsException.class);
+        verify(repository, never()).saveAll(any());
+    }
+
     /**
      * Test getListOfQuestion service when no error occurs.
      *
@@ -164,8 +258,8 @@ public class QuestionServiceTest {
      */
     @Test
     public void getListOfQuestions_whenSuccessful_returnsListOfQuestions() {
-        when(repository.findByParentQuestionIdIsNull())
-                .thenReturn(Collections.singletonList(createQuestionsEntity()));
+        when(summaryRepository.findAllSummaries())
+                .thenReturn(Collections.singletonList(createQuestionDetails()));
         ResponseEntity<List<QuestionDetails>> response = controllerDelegate.getListOfQuestions();
         assertThat(response).isNotNull();
         assertThat(response.getBody().size()).isEqualTo(1);
@@ -180,13 +274,77 @@ public class QuestionServiceTest {
      */
     @Test
     public void getListOfQuestions_whenJPAExceptionOccurs_throwsException() {
-        when(repository.findByParentQuestionIdIsNull()).thenThrow(new JpaSystemException(new RuntimeException("sample exception")));
+        when(summaryRepository.findAllSummaries()).thenThrow(new JpaSystemException(new RuntimeException("sample exception")));
         assertThatThrownBy(() -> controllerDelegate.getListOfQuestions())
                 .hasMessageContaining("Exception occurred while reading Questions from Database")
                 .hasCauseExactlyInstanceOf(JpaSystemException.class)
                 .isInstanceOf(QuestionsException.class);
     }
 
+    /**
+     * Test paginated getListOfQuestions service when there are more questions than the page size.
+     *
+     * @result returns one page and the cursor of the next page.
+     */
+    @Test
+    public void getListOfQuestionsPage_whenMoreQuestionsExist_returnsPageWithNextCursor() {
+        QuestionDetails second = new QuestionDetails(102l, "sample", "second", 0l);
+        when(summaryRepository.findSummaryPage(eq(0l), any()))
+                .thenReturn(Arrays.asList(createQuestionDetails(), second));
+        ResponseEntity<List<QuestionDetails>> response = controllerDelegate.getListOfQuestions(null, 1);
+        assertThat(response.getBody().size()).isEqualTo(1);
+        assertThat(response.getBody().get(0).getId()).isEqualTo(101l);
+        assertThat(Cursors.decode(response.getHeaders().getFirst(QuestionService.NEXT_CURSOR_HEADER))).isEqualTo(101l);
+    }
+
+    /**
+     * Test paginated getListOfQuestions service when the last page is read.
+     *
+     * @result returns the page without a next cursor.
+     */
+    @Test
+    public void getListOfQuestionsPage_whenLastPage_returnsNoNextCursor() {
+        when(summaryRepository.findSummaryPage(eq(100l), any()))
+                .thenReturn(Collections.singletonList(createQuestionDetails()));
+        ResponseEntity<List<QuestionDetails>> response = controllerDelegate.getListOfQuestions(Cursors.encode(100l), 10);
+        assertThat(response.getBody().size()).isEqualTo(1);
+        assertThat(response.getHeaders().containsKey(QuestionService.NEXT_CURSOR_HEADER)).isFalse();
+    }
+
+    /**
+     * Test the entity tag of a page of the question listing before and after a question of the page got a reply, and
+     * once the page is followed by a next page.
+     *
+     * @result the tag is built without any query and changes with the reply count and with the next page.
+     */
+    @Test
+    public void getListOfQuestionsEtag_whenReplyCountChanges_changesEtag() {
+        String etag = controllerDelegate.getListOfQuestionsEtag(null, 10, Collections.singletonList(createQuestionDetails()), false);
+        assertThat(controllerDelegate.getListOfQuestionsEtag(null, 10, Collections.singletonList(createQuestionDetails()), false))
+                .isEqualTo(etag);
+        assertThat(controllerDelegate.getListOfQuestionsEtag(null, 10,
+                Collections.singletonList(new QuestionDetails(101l, "sample", "first message", 2l)), false))
+                .isNotEqualTo(etag);
+        assertThat(controllerDelegate.getListOfQuestionsEtag(null, 10, Collections.singletonList(createQuestionDetails()), true))
+                .isNotEqualTo(etag);
+        verify(summaryRepository, never()).findSummaryPage(any(), any());
+    }
+
+    /**
+     * Test paginated getListOfQuestions service with a cursor which was not handed out by the service.
+     *
+     * @result validation error is thrown by the method.
+     */
+    @Test
+    public void getListOfQuestionsPage_whenCursorIsInvalid_throwsException() {
+        assertThatThrownBy(() -> controllerDelegate.getListOfQuestions("not-a-cursor", 10))
+                .hasMessageContaining("Invalid input. Cursor is not valid")
+                .isInstanceOf(QuestionsException.class);
+        assertThatThrownBy(() -> controllerDelegate.getListOfQuestions(null, 0))
+                .hasMessageContaining("Invalid input. Limit must be between 1 and")
+                .isInstanceOf(QuestionsException.class);
+    }
+
     /**
      * Test getQuestionDetails api with valid input.
      *
@@ -195,10 +353,85 @@ public class QuestionServiceTest {
     @Test
     public void getQuestion_whenInputIsValid_returnsValidResponse() {
         when(repository.findById(any())).thenReturn(Optional.of(createQuestionsEntity()));
+        when(repository.findReplyDetailsPage(eq(10l), eq(0l), any()))
+                .thenReturn(Collections.singletonList(createReplyDetails(102l)));
         ResponseEntity<QuestionsResponse> response = controllerDelegate.getQuestion(10l);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getId()).isEqualTo(101l);
         assertThat(response.getBody().getReplies().size()).isEqualTo(1);
+        assertThat(response.getBody().getTotalReplies()).isEqualTo(1l);
+        assertThat(response.getBody().getNextRepliesCursor()).isNull();
+    }
+
+    /**
+     * Test getQuestionDetails api when the question has more replies than the page size.
+     *
+     * @result returns one page of replies and the cursor of the next page.
+     */
+    @Test
+    public void getQuestion_whenMoreRepliesExist_returnsPageWithNextCursor() {
+        when(repository.findById(any())).thenReturn(Optional.of(createQuestionsEntity()));
+        when(repository.findReplyDetailsPage(eq(10l), eq(102l), any()))
+                .thenReturn(Arrays.asList(createReplyDetails(103l), createReplyDetails(104l)));
+        ResponseEntity<QuestionsResponse> response = controllerDelegate.getQuestion(10l, Cursors.encode(102l), 1);
+        assertThat(response.getBody().getReplies().size()).isEqualTo(1);
+        assertThat(response.getBody().getReplies().get(0).getId()).isEqualTo(103l);
+        assertThat(Cursors.decode(response.getBody().getNextRepliesCursor())).isEqualTo(103l);
+    }
+
+    /**
+     * Test getQuestionDetails api when the same question is read twice and a reply is added in between.
+     *
+     * @result second read is served from the cache, the reply invalidates the cached question.
+     */
+    @Test
+    public void getQuestion_whenReadTwice_isServedFromCacheUntilReplied() {
+        when(repository.findById(any())).thenReturn(Optional.of(createQuestionsEntity()));
+        when(repository.save(any())).thenReturn(createReplyEntity());
+        stubIncrementReplyCount(1);
+        controllerDelegate.getQuestion(10l);
+        controllerDelegate.getQuestion(10l);
+        verify(repository, times(1)).findById(10l);
+
+        controllerDelegate.messageReply(10l, getValidRequestBody());
+        controllerDelegate.getQuestion(10l);
+        verify(repository, times(2)).findById(10l);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+    }
+
+    /**
+     * Test messageReply api in a transaction committed by a real transaction manager, with an enabled read model
+     * observed when the cached question is invalidated.
+     *
+     * @result the read model gets the reply only once the transaction committed and before the cached question is
+     * invalidated, so a reload already sees it.
+     */
+    @Test
+    public void messageReply_whenCommitted_addsReplyToReadModelBeforeInvalidatingCache() {
+        ReadModelProperties properties = new ReadModelProperties();
+        properties.setEnabled(true);
+        QuestionReadModel readModel = new QuestionReadModel(properties);
+        readModel.addQuestion(10l, "Reddy", "sample message");
+        controllerDelegate = new QuestionService(new JpaQuestionStore(repository, summaryRepository, jdbcTemplate), cache,
+                searchIndex, readModel, replyFeed, transactionManager);
+        when(repository.save(any())).thenReturn(createReplyEntity());
+        stubIncrementReplyCount(1);
+        List<Long> repliesWhenInvalidated = new ArrayList<>();
+        doAnswer(invocation -> {
+            repliesWhenInvalidated.add(readModel.findQuestion(10l).getReplies());
+            return invocation.callRealMethod();
+        }).when(cache).invalidate(10l);
+
+        new TransactionTemplate(new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:serviceTest")))
+                .execute(status -> {
+                    controllerDelegate.messageReply(10l, getValidRequestBody());
+                    assertThat(readModel.findQuestion(10l).getReplies()).isZero();
+                    assertThat(repliesWhenInvalidated).isEmpty();
+                    return null;
+                });
+
+        assertThat(repliesWhenInvalidated).containsExactly(1l);
+        assertThat(readModel.findReplyPage(10l, 0, 10)).extracting(ReplyDetails::getId).containsExactly(101l);
     }
 
     /**
@@ -236,9 +469,18 @@ public class QuestionServiceTest {
                 .author("sample")
                 .id(101l)
                 .replies(Collections.singletonList(createReplyEntity()))
+                .replyCount(1l)
                 .build();
     }
 
+    public static QuestionDetails createQuestionDetails() {
+        return new QuestionDetails(101l, "sample", "first message", 1l);
+    }
+
+    public static ReplyDetails createReplyDetails(Long id) {
+        return new ReplyDetails(id, "sample", "reply message");
+    }
+
     public static MessageQuestionReplyBody getRequestWithEmptyAuthor() {
         return MessageQuestionReplyBody.builder()
                 .message("sample message")
@@ -258,12 +500,26 @@ public class QuestionServiceTest {
                 .build();
     }
 
+    /**
+     * Stubs the reply count update of question 10, which returns the new version of the question as generated key
+     * when a row is updated.
+     */
+    private void stubIncrementReplyCount(int updated) {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+            if (updated > 0) {
+                invocation.getArgument(1, KeyHolder.class).getKeyList().add(Collections.singletonMap("version", 5L));
+            }
+            return updated;
+        });
+    }
+
     public static QuestionsEntity createReplyEntity() {
         return QuestionsEntity.builder()
                 .message("first message")
                 .author("sample")
                 .parentQuestionId(10l)
                 .id(101l)
+                .replyNumber(5l)
                 .question(QuestionsEntity.builder().id(10l).build())
                 .build();
     }